@@ -0,0 +1,30 @@
+package MGPFj.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, which adds the allocation rate (gc.alloc.rate.norm, bytes per
+ * operation) to each result. <p/>
+ * The benchmarks need JMH (org.openjdk.jmh:jmh-core and its annotation processor jmh-generator-annprocess) on the
+ * class path, besides the MGPFj sources. eg: <p/>
+ * java -cp [MGPFj + benchmarks + jmh jars] MGPFj.benchmarks.BenchmarkMain [regex] <p/>
+ * The results are also written to jmh-result.json, so two builds can be compared.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "MGPFj\\.benchmarks\\..*")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,62 @@
+package MGPFj.benchmarks;
+
+import MGPFj.chromosome.Node;
+import MGPFj.grammar.*;
+import MGPFj.initialize.GBIM;
+import MGPFj.terminal.constant.Constant;
+import MGPFj.terminal.operation.Operation;
+import MGPFj.terminal.variable.Variable;
+import symbolic_regression_test.Minus;
+import symbolic_regression_test.Multiply;
+import symbolic_regression_test.Plus;
+
+import java.util.List;
+
+/**
+ * The grammar and the random populations shared by the benchmarks. It is the grammar of
+ * symbolic_regression_test.Main, with a configurable number of constants.
+ */
+final class BenchmarkTrees {
+
+    //the variable indices are global, so the variable is shared by all the grammars of the JVM
+    static final Variable[] VARIABLES = Variable.createVariables("v0");
+
+    private BenchmarkTrees() {
+    }
+
+    /**
+     * @param constantCount number of integer constants, 0 to constantCount - 1
+     */
+    static CFG createCFG(int constantCount) {
+        Operation plus = new Plus();
+        Operation minus = new Minus();
+        Operation multiply = new Multiply();
+
+        Constant[] c = new Constant[constantCount];
+        for (int i = 0; i < constantCount; i++) {
+            c[i] = new Constant("c" + i, i);
+        }
+
+        NonTerminal e = new NonTerminal("E");
+        NonTerminal f = new NonTerminal("F");
+
+        return CFG.startBuilding()
+                .addNonTerminals(e, f)
+                .addTerminals(VARIABLES)
+                .addTerminals(c)
+                .addTerminals(minus, multiply, plus)
+                .addProductions(new Production(e, e, minus, e), new Production(e, e, plus, e),
+                        new Production(e, e, multiply, e), new Production(e, f), new Production(e, e, plus, f))
+                .addProductions(Production.createConstantProductions(f, c))
+                .addProductions(Production.createVariableProductions(f, VARIABLES))
+                .setStartSymbol(e)
+                .build();
+    }
+
+    /**
+     * @return popSize random trees of at most maxDepth
+     */
+    static List<Node> createPopulation(CFG cfg, int maxDepth, int popSize) {
+        return new GBIM(cfg, maxDepth).generate(0, popSize, null);
+    }
+}
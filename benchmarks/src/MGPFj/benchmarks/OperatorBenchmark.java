@@ -0,0 +1,72 @@
+package MGPFj.benchmarks;
+
+import MGPFj.chromosome.Node;
+import MGPFj.genetic_operators.crossover.GBC;
+import MGPFj.genetic_operators.mutation.GBM;
+import MGPFj.grammar.CFG;
+import MGPFj.initialize.GBIM;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The grammar based initialization, crossover and mutation. The operators take their parents in turn from
+ * a fixed random population, so each invocation works on different trees.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperatorBenchmark {
+
+    @Param({"4", "6", "8"})
+    public int maxDepth;
+
+    @Param({"10", "100"})
+    public int constantCount;
+
+    @Param({"100", "1000"})
+    public int popSize;
+
+    private GBIM gbim;
+    private GBC gbc;
+    private GBM gbm;
+    private List<Node> population;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CFG cfg = BenchmarkTrees.createCFG(constantCount);
+        gbim = new GBIM(cfg, maxDepth);
+        gbc = new GBC(cfg, maxDepth);
+        gbm = new GBM(cfg, maxDepth);
+        population = BenchmarkTrees.createPopulation(cfg, maxDepth, popSize);
+    }
+
+    @Benchmark
+    public List<Node> gbimGenerate() {
+        return gbim.generate(0, popSize, null);
+    }
+
+    @Benchmark
+    public List<Node> gbcEvolve() {
+        return gbc.evolve(nextParents());
+    }
+
+    @Benchmark
+    public List<Node> gbmEvolve() {
+        return gbm.evolve(nextParents());
+    }
+
+    private List<Node> nextParents() {
+        List<Node> parents = new ArrayList<Node>(2);
+        parents.add(population.get(next));
+        parents.add(population.get((next + 1) % popSize));
+        next = (next + 2) % popSize;
+        return parents;
+    }
+}
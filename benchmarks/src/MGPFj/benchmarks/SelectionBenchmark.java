@@ -0,0 +1,76 @@
+package MGPFj.benchmarks;
+
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.fitness.FitnessFunction;
+import MGPFj.grammar.CFG;
+import MGPFj.grammar.NonTerminal;
+import MGPFj.grammar.Production;
+import MGPFj.select.TournamentSelector;
+import org.openjdk.jmh.annotations.*;
+import symbolic_regression_test.SymbolicFitness;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ranking and the selection of a population, and the production lookup of the grammar.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectionBenchmark {
+
+    @Param({"4", "6", "8"})
+    public int maxDepth;
+
+    @Param({"10", "100"})
+    public int constantCount;
+
+    @Param({"100", "1000"})
+    public int popSize;
+
+    private CFG cfg;
+    private NonTerminal[] nonTerminals;
+    private List<Node> population;
+    private FitnessFunction fitnessFunction;
+    private TournamentSelector selector;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cfg = BenchmarkTrees.createCFG(constantCount);
+        nonTerminals = cfg.getNonTerminals().toArray(new NonTerminal[0]);
+        population = BenchmarkTrees.createPopulation(cfg, maxDepth, popSize);
+
+        //x*x + 2x + 1, the data set of symbolic_regression_test.Main
+        Map<Integer, Integer> dataSet = new HashMap<Integer, Integer>();
+        for (int i = -10; i < 12; i++) {
+            dataSet.put(i, i * i + 2 * i + 1);
+        }
+        fitnessFunction = new SymbolicFitness(dataSet);
+
+        selector = new TournamentSelector(RankedCandidate.rankAndSort(population, fitnessFunction));
+    }
+
+    @Benchmark
+    public RankedCandidate[] rankAndSort() {
+        return RankedCandidate.rankAndSort(population, fitnessFunction);
+    }
+
+    @Benchmark
+    public Node tournamentNext() {
+        return selector.next();
+    }
+
+    @Benchmark
+    public List<Production> getProductionsOf() {
+        next = (next + 1) % nonTerminals.length;
+        return cfg.getProductionsOf(nonTerminals[next]);
+    }
+}
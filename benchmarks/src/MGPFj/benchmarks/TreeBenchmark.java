@@ -0,0 +1,69 @@
+package MGPFj.benchmarks;
+
+import MGPFj.chromosome.Node;
+import MGPFj.grammar.CFG;
+import MGPFj.holder.Assignments;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The tree walks of {@link Node}. Each invocation walks the whole population once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeBenchmark {
+
+    @Param({"4", "6", "8"})
+    public int maxDepth;
+
+    @Param({"10", "100"})
+    public int constantCount;
+
+    @Param({"100", "1000"})
+    public int popSize;
+
+    private List<Node> population;
+    private Assignments assignments;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CFG cfg = BenchmarkTrees.createCFG(constantCount);
+        population = BenchmarkTrees.createPopulation(cfg, maxDepth, popSize);
+        assignments = Assignments.createAssignments(3);
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        for (Node node : population) {
+            blackhole.consume(node.evaluate(assignments));
+        }
+    }
+
+    @Benchmark
+    public void copyTree(Blackhole blackhole) {
+        for (Node node : population) {
+            blackhole.consume(node.copyTree(null));
+        }
+    }
+
+    @Benchmark
+    public void getNodeCount(Blackhole blackhole) {
+        for (Node node : population) {
+            blackhole.consume(node.getNodeCount());
+        }
+    }
+
+    @Benchmark
+    public void getTreeDepth(Blackhole blackhole) {
+        for (Node node : population) {
+            blackhole.consume(node.getTreeDepth());
+        }
+    }
+}
@@ -110,25 +110,85 @@ public class Node {
         return result;
     }
 
+    /**
+     * A branch is constant if it does not contain any variables. So its value does not depend on the assignments.
+     * @return true if this branch of the tree is constant
+     */
+    public boolean isConstant() {
+
+        if (this.getSymbol() instanceof Variable) {
+            return false;
+        }
+
+        for (Node child:this.getChildren()) {
+            if (!child.isConstant()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Two branches are structurally equal if they have the same symbols in the same shape.
+     * @param node the other branch
+     * @return true if both branches are structurally equal
+     */
+    public boolean isStructurallyEqual(Node node) {
+
+        if (this.getSymbol() != node.getSymbol() || this.getChildren().size() != node.getChildren().size()) {
+            return false;
+        }
+
+        for (int i = 0; i < this.getChildren().size(); i++) {
+            if (!this.getChildren().get(i).isStructurallyEqual(node.getChildren().get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * A 64 bit hash of the structure of this branch. Structurally equal branches have the same hash. <p/>
+     * The hash only depends on the symbol names, so it is the same across runs and processes.
+     * @return the structural hash
+     */
+    public long getStructuralHash() {
+        long h = this.symbol.getSymbolName().hashCode() * 0x9E3779B97F4A7C15L + this.children.size();
+
+        for (Node child : this.children) {
+            h = h * 0x100000001B3L + child.getStructuralHash();
+        }
+
+        //final mixing (from the splitmix64 generator)
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
     /**
      * walk through all the sub nodes and takes the symbol names
      * @return a text version of the tree
      */
     public String getTreeNotation() {
-        String s = this.symbol.getSymbolName();
+        StringBuilder s = new StringBuilder();
+        appendTreeNotation(s);
+        return s.toString();
+    }
 
-        if (this.children.size() > 0) {
+    private void appendTreeNotation(StringBuilder s) {
+        s.append(this.symbol.getSymbolName());
 
-            StringBuilder s2 = new StringBuilder();
+        if (this.children.size() > 0) {
+            s.append(" (");
 
             for (Node node : children) {
-                s2.append(node.getTreeNotation());
+                node.appendTreeNotation(s);
             }
 
-            s = s + " (" + s2 + ")";
+            s.append(")");
         }
-
-        return s;
     }
 
     public String getTerminalNotation() {
@@ -0,0 +1,86 @@
+package MGPFj.chromosome;
+
+import MGPFj.genetic_operators.GeneticOperator;
+
+import java.util.List;
+
+/**
+ * A newly created node, along with its origin. <p/>
+ * If the genome of the offspring is identical to one of its parents, the fitness of that parent is carried over,
+ * so the offspring is not evaluated again. <p/>
+ * [NOTE: the engine ignores the carried fitness when the fitness changes between generations (eg, with
+ * subsampling), since it was measured on the sample of the previous generation.]
+ */
+public class Offspring {
+
+    private final Node node;
+    private final GeneticOperator operator;
+    private final List<RankedCandidate> parents;
+    private final long structuralHash;
+    private final double cachedFitness;
+
+    private Offspring(Node node, GeneticOperator operator, List<RankedCandidate> parents, long structuralHash,
+                      double cachedFitness) {
+        this.node = node;
+        this.operator = operator;
+        this.parents = parents;
+        this.structuralHash = structuralHash;
+        this.cachedFitness = cachedFitness;
+    }
+
+    /**
+     * @param node the created node
+     * @param operator the genetic operator which created the node
+     * @param parents the nodes given to the genetic operator
+     * @return the offspring, with the fitness of the parent whose genome is identical, if any.
+     */
+    public static Offspring createOffspring(Node node, GeneticOperator operator, List<RankedCandidate> parents) {
+        long hash = node.getStructuralHash();
+        double fitness = Double.NaN;
+
+        for (RankedCandidate parent : parents) {
+            if (parent.getNode().getStructuralHash() == hash && parent.getNode().isStructurallyEqual(node)) {
+                fitness = parent.getFitness();
+                break;
+            }
+        }
+
+        return new Offspring(node, operator, parents, hash, fitness);
+    }
+
+    public Node getNode() {
+        return node;
+    }
+
+    /**
+     * @return the genetic operator which created the node
+     */
+    public GeneticOperator getOperator() {
+        return operator;
+    }
+
+    /**
+     * @return the candidates which the node was created from
+     */
+    public List<RankedCandidate> getParents() {
+        return parents;
+    }
+
+    public long getStructuralHash() {
+        return structuralHash;
+    }
+
+    /**
+     * @return true if the genome did not change, so the fitness is known.
+     */
+    public boolean hasCachedFitness() {
+        return !Double.isNaN(cachedFitness);
+    }
+
+    /**
+     * @return the fitness carried over from the parent, or NaN if the node must be evaluated.
+     */
+    public double getCachedFitness() {
+        return cachedFitness;
+    }
+}
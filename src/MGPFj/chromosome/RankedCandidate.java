@@ -2,8 +2,11 @@ package MGPFj.chromosome;
 
 import MGPFj.fitness.FitnessFunction;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class RankedCandidate implements Comparable {
 
@@ -23,16 +26,132 @@ public class RankedCandidate implements Comparable {
         return fitness;
     }
 
+    /**
+     * Creates a candidate whose fitness is already known, eg, read from a file.
+     * @param node the node
+     * @param fitness the fitness of the node
+     * @return the candidate
+     */
+    public static RankedCandidate create(Node node, double fitness) {
+        return new RankedCandidate(node, fitness);
+    }
+
 
     public static RankedCandidate[] rankAndSort (List<Node> nodes, FitnessFunction fitnessFunction) {
 
         RankedCandidate[] rankedCandidates = new RankedCandidate[nodes.size()];
 
+        double[] fitness = new double[nodes.size()];
+        fitnessFunction.evaluateAll(nodes, fitness);
+
+        for (int i = 0; i < nodes.size(); i++) {
+            rankedCandidates[i] = new RankedCandidate(nodes.get(i), fitness[i]);
+        }
+
+        Arrays.sort(rankedCandidates);
+
+        return rankedCandidates;
+    }
+
+    /**
+     * Same as {@link #rankAndSort(List, FitnessFunction)}, but the nodes whose fitness is already known
+     * are not evaluated again.
+     * @param nodes the nodes
+     * @param knownFitness the known fitness of each node, or NaN if it must be evaluated.
+     * @param fitnessFunction the fitness function
+     * @return the sorted candidates
+     */
+    public static RankedCandidate[] rankAndSort (List<Node> nodes, double[] knownFitness, FitnessFunction fitnessFunction) {
+
+        List<Node> unknownNodes = new ArrayList<Node>();
+        for (int i = 0; i < nodes.size(); i++) {
+            if (Double.isNaN(knownFitness[i])) {
+                unknownNodes.add(nodes.get(i));
+            }
+        }
+
+        RankedCandidate[] evaluated = rankAndSort(unknownNodes, fitnessFunction);
+
+        RankedCandidate[] rankedCandidates = Arrays.copyOf(evaluated, nodes.size());
+        int j = evaluated.length;
+        for (int i = 0; i < nodes.size(); i++) {
+            if (!Double.isNaN(knownFitness[i])) {
+                rankedCandidates[j++] = new RankedCandidate(nodes.get(i), knownFitness[i]);
+            }
+        }
+
+        Arrays.sort(rankedCandidates);
+
+        return rankedCandidates;
+    }
+
+    /**
+     * Same as {@link #rankAndSort(List, double[], FitnessFunction)}, but each distinct genome is evaluated once.
+     * A node with an unknown fitness takes the known fitness of a structurally equal node, or shares the evaluation
+     * of the first structurally equal node.
+     * @param nodes the nodes
+     * @param knownFitness the known fitness of each node, or NaN if it must be evaluated.
+     * @param fitnessFunction the fitness function
+     * @return the sorted candidates
+     */
+    public static RankedCandidate[] rankAndSortDistinct(List<Node> nodes, double[] knownFitness,
+                                                        FitnessFunction fitnessFunction) {
+
+        //the nodes are grouped by genome. the representative of a genome is a node with a known fitness, if any,
+        //otherwise the first node of the genome
+        int[] genomes = new int[nodes.size()];
+        List<Integer> representatives = new ArrayList<Integer>();
+        Map<Long, List<Integer>> genomesByHash = new HashMap<Long, List<Integer>>();
+
         for (int i = 0; i < nodes.size(); i++) {
             Node node = nodes.get(i);
-            double fitness = fitnessFunction.evaluate(node);
+            List<Integer> sameHash = genomesByHash.get(node.getStructuralHash());
+            if (sameHash == null) {
+                sameHash = new ArrayList<Integer>(1);
+                genomesByHash.put(node.getStructuralHash(), sameHash);
+            }
+
+            int genome = -1;
+            for (int candidate : sameHash) {
+                if (nodes.get(representatives.get(candidate)).isStructurallyEqual(node)) {
+                    genome = candidate;
+                    break;
+                }
+            }
+
+            if (genome == -1) {
+                genome = representatives.size();
+                representatives.add(i);
+                sameHash.add(genome);
+            } else if (Double.isNaN(knownFitness[representatives.get(genome)]) && !Double.isNaN(knownFitness[i])) {
+                representatives.set(genome, i);
+            }
+            genomes[i] = genome;
+        }
 
-            rankedCandidates[i] = new RankedCandidate(node, fitness);
+        //one evaluation for each genome without a known fitness
+        double[] genomeFitness = new double[representatives.size()];
+        List<Node> unknownNodes = new ArrayList<Node>();
+        for (int genome = 0; genome < genomeFitness.length; genome++) {
+            genomeFitness[genome] = knownFitness[representatives.get(genome)];
+            if (Double.isNaN(genomeFitness[genome])) {
+                unknownNodes.add(nodes.get(representatives.get(genome)));
+            }
+        }
+
+        double[] evaluated = new double[unknownNodes.size()];
+        fitnessFunction.evaluateAll(unknownNodes, evaluated);
+
+        for (int genome = 0, j = 0; genome < genomeFitness.length; genome++) {
+            if (Double.isNaN(genomeFitness[genome])) {
+                genomeFitness[genome] = evaluated[j++];
+            }
+        }
+
+        RankedCandidate[] rankedCandidates = new RankedCandidate[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            double fitness = Double.isNaN(knownFitness[i]) ? genomeFitness[genomes[i]] : knownFitness[i];
+            rankedCandidates[i] = new RankedCandidate(nodes.get(i), fitness);
         }
 
         Arrays.sort(rankedCandidates);
@@ -40,6 +159,29 @@ public class RankedCandidate implements Comparable {
         return rankedCandidates;
     }
 
+    /**
+     * Re-evaluates the first count candidates of a sorted array with another fitness function,
+     * and sorts only those candidates again. So they stay in front of the remaining candidates.
+     * @param rankedCandidates the sorted candidates
+     * @param count number of candidates to re-evaluate
+     * @param fitnessFunction the fitness function used for re-evaluating
+     * @return a new sorted array of candidates
+     */
+    public static RankedCandidate[] rerank(RankedCandidate[] rankedCandidates, int count, FitnessFunction fitnessFunction) {
+
+        RankedCandidate[] result = Arrays.copyOf(rankedCandidates, rankedCandidates.length);
+        count = Math.min(count, result.length);
+
+        for (int i = 0; i < count; i++) {
+            Node node = result[i].getNode();
+            result[i] = new RankedCandidate(node, fitnessFunction.evaluate(node));
+        }
+
+        Arrays.sort(result, 0, count);
+
+        return result;
+    }
+
 
     @Override
     public String toString() {
@@ -0,0 +1,151 @@
+package MGPFj.dataset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads some columns of a binary columnar file in chunks of rows, without mapping or loading the whole file. <p/>
+ * This is used for data sets which are larger than the memory. Only one chunk of each column is held at a time,
+ * and each pass reads the file sequentially from the first row to the last.
+ */
+public class ColumnChunkReader {
+
+    private final ColumnarDataSet header;
+    private final int[] columns;
+    private final int chunkRows;
+    private final ByteBuffer[] buffers;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+
+    private long firstRow;
+    private int rows;
+
+    /**
+     * @param binaryFile the binary columnar file, created by {@link ColumnarDataSet#convertCsv}
+     * @param chunkRows maximum number of rows in a chunk
+     * @param columnNames the columns which are read
+     * @throws IOException if the file cannot be read or is not a columnar file.
+     */
+    public ColumnChunkReader(File binaryFile, int chunkRows, String... columnNames) throws IOException {
+
+        if (chunkRows <= 0) {
+            throw new RuntimeException("Chunk size must be positive");
+        }
+
+        this.header = ColumnarDataSet.readHeader(binaryFile);
+        this.chunkRows = chunkRows;
+        this.columns = new int[columnNames.length];
+        this.buffers = new ByteBuffer[columnNames.length];
+
+        for (int i = 0; i < columnNames.length; i++) {
+            columns[i] = header.getColumnIndex(columnNames[i]);
+            int width = header.getColumnType(columns[i]).getWidth();
+            buffers[i] = ByteBuffer.allocateDirect(chunkRows * width).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        this.raf = new RandomAccessFile(binaryFile, "r");
+        this.channel = raf.getChannel();
+
+        reset();
+    }
+
+    /**
+     * Moves back to the first row. The next call to {@link #next()} reads the first chunk.
+     */
+    public void reset() {
+        this.firstRow = 0;
+        this.rows = 0;
+    }
+
+    /**
+     * Reads the next chunk of all the columns.
+     * @return false if there are no more rows.
+     * @throws IOException if reading fails
+     */
+    public boolean next() throws IOException {
+        firstRow += rows;
+
+        long remaining = header.getRowCount() - firstRow;
+        if (remaining <= 0) {
+            rows = 0;
+            return false;
+        }
+
+        rows = (int) Math.min(remaining, chunkRows);
+
+        for (int i = 0; i < columns.length; i++) {
+            int width = header.getColumnType(columns[i]).getWidth();
+            long position = header.getColumnOffset(columns[i]) + firstRow * width;
+
+            ByteBuffer buffer = buffers[i];
+            buffer.clear();
+            buffer.limit(rows * width);
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) == -1) {
+                    throw new IOException("Unexpected end of " + header.getFile());
+                }
+            }
+
+            buffer.flip();
+        }
+
+        return true;
+    }
+
+    /**
+     * @return number of rows in the current chunk.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return index of the first row of the current chunk in the data set.
+     */
+    public long getFirstRow() {
+        return firstRow;
+    }
+
+    /**
+     * @return total number of rows in the data set.
+     */
+    public long getRowCount() {
+        return header.getRowCount();
+    }
+
+    /**
+     * @param i index of the column in the columnNames given to the constructor
+     * @return the values of the current chunk
+     */
+    public IntBuffer getIntColumn(int i) {
+        checkType(i, ColumnarDataSet.ColumnType.INT);
+        return buffers[i].duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * @param i index of the column in the columnNames given to the constructor
+     * @return the values of the current chunk
+     */
+    public DoubleBuffer getDoubleColumn(int i) {
+        checkType(i, ColumnarDataSet.ColumnType.DOUBLE);
+        return buffers[i].duplicate().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    public void close() throws IOException {
+        raf.close();
+    }
+
+    private void checkType(int i, ColumnarDataSet.ColumnType type) {
+        if (header.getColumnType(columns[i]) != type) {
+            throw new RuntimeException("Column " + header.getColumnName(columns[i]) + " is of type "
+                    + header.getColumnType(columns[i]));
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package MGPFj.dataset;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A read-only data set, stored column by column in a compact binary file. <p/>
+ * A CSV file is converted only once into the binary file. After that the columns are memory mapped,
+ * so opening is instant, several processes share the same pages, and the fitness functions read
+ * each column as a sequential array of primitives.
+ *
+ * <pre>
+ * file   = magic version rowCount columnCount column* data
+ * column = type offset name
+ * </pre>
+ * The header is big endian (it is written with a {@link DataOutputStream}, and the names in modified UTF-8), the
+ * values of the columns are little endian. Each column starts at an offset aligned to 8 bytes.
+ */
+public final class ColumnarDataSet {
+
+    private static final int MAGIC = 0x4D475044; //MGPD
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    public enum ColumnType {
+        INT(4), DOUBLE(8);
+
+        private final int width;
+
+        ColumnType(int width) {
+            this.width = width;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+    }
+
+    private final File file;
+    private final long rowCount;
+    private final String[] names;
+    private final ColumnType[] types;
+    private final long[] offsets;
+    private final ByteBuffer[] columns;
+
+    private ColumnarDataSet(File file, long rowCount, String[] names, ColumnType[] types, long[] offsets,
+                            ByteBuffer[] columns) {
+        this.file = file;
+        this.rowCount = rowCount;
+        this.names = names;
+        this.types = types;
+        this.offsets = offsets;
+        this.columns = columns;
+    }
+
+    /**
+     * Opens the binary version of a CSV file. The binary file is (re)created only if it is missing
+     * or older than the CSV file.
+     * @param csvFile CSV file with a header line of column names.
+     * @param binaryFile the binary columnar file.
+     * @return the opened data set
+     * @throws IOException if reading or writing fails
+     */
+    public static ColumnarDataSet fromCsv(File csvFile, File binaryFile) throws IOException {
+
+        if (!binaryFile.exists() || binaryFile.lastModified() < csvFile.lastModified()) {
+            convertCsv(csvFile, binaryFile);
+        }
+
+        return open(binaryFile);
+    }
+
+    /**
+     * Memory maps all the columns of a binary columnar file.
+     * @param binaryFile the binary columnar file.
+     * @return the opened data set
+     * @throws IOException if the file cannot be read or is not a columnar file.
+     */
+    public static ColumnarDataSet open(File binaryFile) throws IOException {
+        ColumnarDataSet dataSet = readHeader(binaryFile);
+
+        RandomAccessFile raf = new RandomAccessFile(binaryFile, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+
+            for (int i = 0; i < dataSet.columns.length; i++) {
+                long size = dataSet.rowCount * dataSet.types[i].getWidth();
+
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Column " + dataSet.names[i] + " is too large to be mapped");
+                }
+
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, dataSet.offsets[i], size);
+                dataSet.columns[i] = buffer.order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } finally {
+            //the mappings stay valid after closing the channel
+            raf.close();
+        }
+
+        return dataSet;
+    }
+
+    /**
+     * Reads only the header of a binary columnar file. The columns are not mapped.
+     */
+    static ColumnarDataSet readHeader(File binaryFile) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(binaryFile)));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a columnar data set: " + binaryFile);
+            }
+
+            if (in.readInt() != VERSION) {
+                throw new IOException("Unsupported columnar data set version: " + binaryFile);
+            }
+
+            long rowCount = in.readLong();
+            int columnCount = in.readInt();
+
+            String[] names = new String[columnCount];
+            ColumnType[] types = new ColumnType[columnCount];
+            long[] offsets = new long[columnCount];
+
+            for (int i = 0; i < columnCount; i++) {
+                types[i] = ColumnType.values()[in.readByte()];
+                offsets[i] = in.readLong();
+                names[i] = in.readUTF();
+            }
+
+            return new ColumnarDataSet(binaryFile, rowCount, names, types, offsets, new ByteBuffer[columnCount]);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Converts a CSV file into a binary columnar file.
+     * A column is stored as INT if all of its values are integers, else as DOUBLE.
+     * @param csvFile CSV file with a header line of column names.
+     * @param binaryFile the binary columnar file.
+     * @throws IOException if reading or writing fails
+     */
+    public static void convertCsv(File csvFile, File binaryFile) throws IOException {
+
+        //PASS 1: find the column names, the row count and the column types
+        String[] names;
+        boolean[] isInt;
+        long rowCount = 0;
+
+        BufferedReader reader = new BufferedReader(new FileReader(csvFile), BUFFER_SIZE);
+        try {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IOException("Empty CSV file: " + csvFile);
+            }
+
+            names = split(header, -1);
+            isInt = new boolean[names.length];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = names[i].trim();
+                isInt[i] = true;
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().length() == 0) continue;
+
+                String[] values = split(line, names.length);
+                for (int i = 0; i < values.length; i++) {
+                    if (isInt[i] && !isInteger(values[i])) {
+                        isInt[i] = false;
+                    }
+                }
+                rowCount++;
+            }
+        } finally {
+            reader.close();
+        }
+
+        //header, the size of the header does not depend on the offsets
+        ColumnType[] types = new ColumnType[names.length];
+        long[] offsets = new long[names.length];
+
+        for (int i = 0; i < names.length; i++) {
+            types[i] = isInt[i] ? ColumnType.INT : ColumnType.DOUBLE;
+        }
+
+        long offset = align(createHeader(rowCount, names, types, offsets).length);
+        for (int i = 0; i < names.length; i++) {
+            offsets[i] = offset;
+            offset = align(offset + rowCount * types[i].getWidth());
+        }
+
+        byte[] header = createHeader(rowCount, names, types, offsets);
+
+        //PASS 2: write the values of each column at its own position.
+        //a temporary file is renamed at the end, so other processes never map a half written file.
+        //it has a unique name in the same directory, so concurrent conversions do not write to the same file.
+        File tempFile = File.createTempFile(binaryFile.getName() + ".", ".tmp",
+                binaryFile.getAbsoluteFile().getParentFile());
+        boolean written = false;
+        RandomAccessFile raf = new RandomAccessFile(tempFile, "rw");
+        reader = new BufferedReader(new FileReader(csvFile), BUFFER_SIZE);
+        try {
+            raf.setLength(0);
+            FileChannel channel = raf.getChannel();
+            channel.write(ByteBuffer.wrap(header), 0);
+
+            ByteBuffer[] buffers = new ByteBuffer[names.length];
+            long[] positions = Arrays.copyOf(offsets, offsets.length);
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().length() == 0) continue;
+
+                String[] values = split(line, names.length);
+                for (int i = 0; i < values.length; i++) {
+                    if (buffers[i].remaining() < types[i].getWidth()) {
+                        positions[i] += flush(channel, buffers[i], positions[i]);
+                    }
+
+                    if (types[i] == ColumnType.INT) {
+                        buffers[i].putInt(Integer.parseInt(values[i].trim()));
+                    } else {
+                        buffers[i].putDouble(Double.parseDouble(values[i].trim()));
+                    }
+                }
+            }
+
+            for (int i = 0; i < buffers.length; i++) {
+                flush(channel, buffers[i], positions[i]);
+            }
+
+            raf.setLength(offset);
+            channel.force(true);
+            written = true;
+        } finally {
+            reader.close();
+            raf.close();
+            if (!written) {
+                tempFile.delete();
+            }
+        }
+
+        if (!tempFile.renameTo(binaryFile)) {
+            binaryFile.delete();
+            if (!tempFile.renameTo(binaryFile)) {
+                tempFile.delete();
+                throw new IOException("Cannot create " + binaryFile);
+            }
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return names.length;
+    }
+
+    public String getColumnName(int column) {
+        return names[column];
+    }
+
+    public ColumnType getColumnType(int column) {
+        return types[column];
+    }
+
+    /**
+     * @param name name of the column
+     * @return the index of the column
+     * @throws RuntimeException if there is no such column
+     */
+    public int getColumnIndex(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+
+        throw new RuntimeException("No column named " + name);
+    }
+
+    /**
+     * @param column index of an INT column
+     * @return a read-only view of the mapped column
+     */
+    public IntBuffer getIntColumn(int column) {
+        checkType(column, ColumnType.INT);
+        return mapped(column).asIntBuffer();
+    }
+
+    /**
+     * @param column index of a DOUBLE column
+     * @return a read-only view of the mapped column
+     */
+    public DoubleBuffer getDoubleColumn(int column) {
+        checkType(column, ColumnType.DOUBLE);
+        return mapped(column).asDoubleBuffer();
+    }
+
+    /**
+     * @return the binary file of this data set
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the position of the first value of a column in the binary file.
+     */
+    long getColumnOffset(int column) {
+        return offsets[column];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("ColumnarDataSet: [");
+        for (int i = 0; i < names.length; i++) {
+            s.append(names[i]).append(":").append(types[i]).append(", ");
+        }
+        s.delete(s.length() - 2, s.length());
+        s.append("] rows: ").append(rowCount);
+
+        return s.toString();
+    }
+
+    private ByteBuffer mapped(int column) {
+        if (columns[column] == null) {
+            throw new RuntimeException("Column " + names[column] + " is not mapped");
+        }
+
+        return columns[column].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void checkType(int column, ColumnType type) {
+        if (types[column] != type) {
+            throw new RuntimeException("Column " + names[column] + " is of type " + types[column]);
+        }
+    }
+
+    private static byte[] createHeader(long rowCount, String[] names, ColumnType[] types, long[] offsets)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(rowCount);
+        out.writeInt(names.length);
+
+        for (int i = 0; i < names.length; i++) {
+            out.writeByte(types[i].ordinal());
+            out.writeLong(offsets[i]);
+            out.writeUTF(names[i]);
+        }
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    private static int flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        buffer.clear();
+
+        return written;
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static boolean isInteger(String value) {
+        try {
+            Integer.parseInt(value.trim());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String[] split(String line, int expectedColumns) throws IOException {
+        String[] values = line.split(",", -1);
+
+        if (expectedColumns != -1 && values.length != expectedColumns) {
+            throw new IOException("Expected " + expectedColumns + " columns, found " + values.length + ": " + line);
+        }
+
+        return values;
+    }
+}
@@ -0,0 +1,409 @@
+package MGPFj.distributed;
+
+import MGPFj.chromosome.Node;
+import MGPFj.fitness.FitnessFunction;
+import MGPFj.grammar.CFG;
+import MGPFj.serialization.TreeCodec;
+import MGPFj.utils.Util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evaluates the population on {@link EvaluationWorker}s in other JVMs, over TCP. <p/>
+ * The population is split into batches of serialized trees. Each worker connection keeps a few batches in flight,
+ * so the worker never waits for the network, and the faster workers simply take more batches. <p/>
+ * If a worker fails or times out, its batches in flight are sent to the other workers, and the worker is
+ * connected again at the next call. The evaluation fails only if all the workers fail, and the last failure is the
+ * cause (when the fitness function of a worker throws, it carries the stack trace of the worker). <p/>
+ * [NOTE: the workers must build the same CFG as the master. The generations are not sent to the workers, so their
+ * fitness functions must not change between generations (eg, a {@link MGPFj.fitness.SubsampledFitness}).]
+ */
+public class DistributedFitness implements FitnessFunction {
+
+    private final TreeCodec codec;
+    private final WorkerConnection[] connections;
+    private final int batchSize;
+    private final int pipelineDepth;
+
+    private int timeoutMillis = 60000;
+
+    private long evaluatedCount;
+    private long batchCount;
+    private final AtomicLong redispatchedBatches = new AtomicLong();
+    private final AtomicInteger lastMaxInFlight = new AtomicInteger();
+    private long lastWallNanos;
+    private int lastCount;
+    private int lastWorkers;
+
+    /**
+     * @param cfg the CFG of the trees
+     * @param workers the addresses of the workers
+     * @param batchSize number of trees sent in one request
+     * @param pipelineDepth number of requests in flight on each worker
+     */
+    public DistributedFitness(CFG cfg, List<InetSocketAddress> workers, int batchSize, int pipelineDepth) {
+
+        if (workers.isEmpty()) {
+            throw new RuntimeException("No workers are given");
+        }
+
+        if (batchSize <= 0 || pipelineDepth <= 0) {
+            throw new RuntimeException("Batch size and pipeline depth must be positive");
+        }
+
+        this.codec = new TreeCodec(cfg);
+        this.batchSize = batchSize;
+        this.pipelineDepth = pipelineDepth;
+        this.connections = new WorkerConnection[workers.size()];
+
+        for (int i = 0; i < connections.length; i++) {
+            connections[i] = new WorkerConnection(workers.get(i));
+        }
+    }
+
+    /**
+     * Sends 32 trees in a request, and keeps 2 requests in flight on each worker.
+     */
+    public DistributedFitness(CFG cfg, List<InetSocketAddress> workers) {
+        this(cfg, workers, 32, 2);
+    }
+
+    /**
+     * @param timeoutMillis a worker which does not answer within this time is treated as failed. The default is 60s.
+     */
+    public void setTimeout(int timeoutMillis) {
+
+        if (timeoutMillis < 0) {
+            throw new RuntimeException("Timeout must not be negative");
+        }
+
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public double evaluate(Node node) {
+        double[] fitness = new double[1];
+        evaluateAll(Util.createList(node), fitness);
+        return fitness[0];
+    }
+
+    @Override
+    public synchronized void evaluateAll(final List<Node> nodes, final double[] out) {
+
+        if (nodes.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        lastMaxInFlight.set(0);
+
+        final LinkedBlockingDeque<Batch> pending = new LinkedBlockingDeque<Batch>();
+        for (int from = 0, id = 0; from < nodes.size(); from += batchSize, id++) {
+            pending.add(new Batch(id, from, Math.min(from + batchSize, nodes.size())));
+        }
+        final AtomicInteger remaining = new AtomicInteger(pending.size());
+
+        //(re)connecting the workers
+        List<WorkerConnection> live = new ArrayList<WorkerConnection>();
+        for (WorkerConnection connection : connections) {
+            if (connection.connect()) {
+                live.add(connection);
+            }
+        }
+
+        if (live.isEmpty()) {
+            throw new RuntimeException("None of the workers is reachable", lastError());
+        }
+
+        //one thread per worker, which sends the batches and reads the results of that worker
+        final CountDownLatch done = new CountDownLatch(live.size());
+        for (final WorkerConnection connection : live) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        connection.process(nodes, out, pending, remaining);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "distributed-fitness-" + connection.address);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Evaluation interrupted", e);
+        }
+
+        if (remaining.get() > 0) {
+            for (WorkerConnection connection : live) {
+                if (connection.failure != null) {
+                    throw connection.failure;
+                }
+            }
+            throw new RuntimeException("All the workers failed", lastError());
+        }
+
+        lastWallNanos = System.nanoTime() - start;
+        lastCount = nodes.size();
+        lastWorkers = live.size();
+        evaluatedCount += nodes.size();
+        batchCount += (nodes.size() + batchSize - 1) / batchSize;
+    }
+
+    /**
+     * @return the number of trees evaluated per second, in the last call
+     */
+    public double getLastThroughput() {
+        return lastWallNanos == 0 ? 0 : (double) lastCount * 1e9 / lastWallNanos;
+    }
+
+    /**
+     * @return the wall time of the last call, in nanoseconds
+     */
+    public long getLastWallNanos() {
+        return lastWallNanos;
+    }
+
+    /**
+     * @return the number of workers which took part in the last call
+     */
+    public int getLastWorkers() {
+        return lastWorkers;
+    }
+
+    /**
+     * @return the largest number of batches in flight on one worker, in the last call
+     */
+    public int getLastMaxInFlight() {
+        return lastMaxInFlight.get();
+    }
+
+    /**
+     * @return the number of trees evaluated so far
+     */
+    public long getEvaluatedCount() {
+        return evaluatedCount;
+    }
+
+    /**
+     * @return the number of batches evaluated so far
+     */
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * @return the number of batches which were sent again, because their worker failed
+     */
+    public long getRedispatchedBatches() {
+        return redispatchedBatches.get();
+    }
+
+    /**
+     * Closes the connections. The workers keep running.
+     */
+    public synchronized void close() {
+        for (WorkerConnection connection : connections) {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DistributedFitness: workers: " + lastWorkers + "/" + connections.length
+                + ", throughput: " + (long) getLastThroughput() + " trees/s"
+                + ", redispatched batches: " + redispatchedBatches.get()
+                + ", time: " + lastWallNanos / 1000000 + "ms";
+    }
+
+    /**
+     * A range of the population, sent in one request.
+     */
+    private static class Batch {
+        private final int id;
+        private final int from;
+        private final int to;
+
+        private Batch(int id, int from, int to) {
+            this.id = id;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * @return the last connection failure of the workers, or null if none failed
+     */
+    private IOException lastError() {
+        IOException result = null;
+        for (WorkerConnection connection : connections) {
+            if (connection.error != null) {
+                result = connection.error;
+            }
+        }
+        return result;
+    }
+
+    private class WorkerConnection {
+        private final InetSocketAddress address;
+
+        private Socket socket;
+        private DataInputStream in;
+        private DataOutputStream out;
+        private RuntimeException failure;
+        private IOException error; //the last lost connection, eg, with the stack trace of a failed worker
+
+        private WorkerConnection(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        /**
+         * @return true if the worker is connected
+         */
+        private boolean connect() {
+            if (socket != null) {
+                return true;
+            }
+
+            try {
+                socket = new Socket();
+                socket.connect(address, timeoutMillis);
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(timeoutMillis);
+
+                in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+                //handshake: both sides must agree on the grammar
+                out.writeInt(EvaluationWorker.MAGIC);
+                out.writeLong(codec.getFingerprint());
+                out.flush();
+
+                if (in.readInt() != EvaluationWorker.MAGIC) {
+                    throw new IOException("Not an evaluation worker: " + address);
+                }
+                if (in.readLong() != codec.getFingerprint()) {
+                    disconnect();
+                    throw new RuntimeException("The worker " + address + " has a different CFG");
+                }
+
+                error = null;
+                return true;
+            } catch (IOException e) {
+                disconnect();
+                error = e;
+                return false;
+            }
+        }
+
+        private void disconnect() {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    //nothing to do
+                }
+            }
+
+            socket = null;
+            in = null;
+            out = null;
+        }
+
+        /**
+         * Sends the pending batches and reads their results, until all the batches of the call are done.
+         * On failure, the batches in flight are given back to the other workers.
+         */
+        private void process(List<Node> nodes, double[] fitness, LinkedBlockingDeque<Batch> pending,
+                             AtomicInteger remaining) {
+            Deque<Batch> inFlight = new ArrayDeque<Batch>();
+            failure = null;
+            error = null;
+
+            try {
+                while (remaining.get() > 0) {
+
+                    //filling the pipeline
+                    Batch batch;
+                    while (inFlight.size() < pipelineDepth && (batch = pending.poll()) != null) {
+                        out.writeInt(batch.id);
+                        out.writeInt(batch.to - batch.from);
+                        for (int i = batch.from; i < batch.to; i++) {
+                            codec.write(nodes.get(i), out);
+                        }
+                        inFlight.add(batch);
+                    }
+                    out.flush();
+
+                    int current;
+                    while ((current = lastMaxInFlight.get()) < inFlight.size()
+                            && !lastMaxInFlight.compareAndSet(current, inFlight.size())) {
+                        //another worker raised it in between
+                    }
+
+                    if (inFlight.isEmpty()) {
+                        //the other workers hold the rest. waiting in case one of them fails.
+                        batch = pending.poll(10, TimeUnit.MILLISECONDS);
+                        if (batch != null) {
+                            pending.addFirst(batch);
+                        }
+                        continue;
+                    }
+
+                    //the results come back in the order of the requests
+                    batch = inFlight.peek();
+                    int id = in.readInt();
+                    if (id == EvaluationWorker.FAILED) {
+                        throw new IOException("The worker " + address + " failed: " + in.readUTF());
+                    }
+                    if (id != batch.id) {
+                        throw new IOException("Unexpected response from " + address);
+                    }
+                    for (int i = batch.from; i < batch.to; i++) {
+                        fitness[i] = in.readDouble();
+                    }
+                    inFlight.poll();
+                    remaining.decrementAndGet();
+                }
+            } catch (IOException e) {
+                redispatch(inFlight, pending);
+                error = e;
+            } catch (InterruptedException e) {
+                redispatch(inFlight, pending);
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                //eg, a tree which does not belong to the CFG. the other workers would fail too.
+                redispatch(inFlight, pending);
+                failure = e;
+            }
+        }
+
+        private void redispatch(Deque<Batch> inFlight, LinkedBlockingDeque<Batch> pending) {
+            disconnect();
+            redispatchedBatches.addAndGet(inFlight.size());
+            while (!inFlight.isEmpty()) {
+                pending.addFirst(inFlight.pollLast());
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package MGPFj.distributed;
+
+import MGPFj.chromosome.Node;
+import MGPFj.fitness.FitnessFunction;
+import MGPFj.grammar.CFG;
+import MGPFj.serialization.TreeCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evaluates the trees sent by a {@link DistributedFitness} master. <p/>
+ * The worker listens on a TCP port, and serves each master connection on its own thread.
+ * A request is a batch of serialized trees, and the response is their fitness values, in the same order.
+ * The requests of a connection are answered one after the other, so the master can send the next batches
+ * while the current one is evaluated. <p/>
+ * [NOTE: the worker must build the same CFG as the master.
+ * If several masters connect, the fitness function is called from several threads at once.]
+ */
+public class EvaluationWorker {
+
+    static final int MAGIC = 0x4D475057;
+    //sent instead of a batch id when the fitness function failed, followed by the stack trace
+    static final int FAILED = -1;
+    private static final int MAX_TRACE_LENGTH = 16000;
+
+    private final FitnessFunction fitnessFunction;
+    private final TreeCodec codec;
+    private final ServerSocket serverSocket;
+    private final AtomicLong evaluated = new AtomicLong();
+    private final Set<Socket> connections = new HashSet<Socket>();
+
+    /**
+     * @param cfg the CFG of the trees
+     * @param fitnessFunction the fitness function
+     * @param port the TCP port, or 0 for any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public EvaluationWorker(CFG cfg, FitnessFunction fitnessFunction, int port) throws IOException {
+        this.fitnessFunction = fitnessFunction;
+        this.codec = new TreeCodec(cfg);
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * @param cfg the CFG of the trees
+     * @param fitnessFunction the fitness function
+     * @param port the TCP port, or 0 for any free port
+     * @param bindAddress the address to listen on (eg, all the interfaces, for workers on other machines)
+     * @throws IOException if the port cannot be opened
+     */
+    public EvaluationWorker(CFG cfg, FitnessFunction fitnessFunction, int port, InetAddress bindAddress)
+            throws IOException {
+        this.fitnessFunction = fitnessFunction;
+        this.codec = new TreeCodec(cfg);
+        this.serverSocket = new ServerSocket(port, 50, bindAddress);
+    }
+
+    /**
+     * Accepts the connections on a background daemon thread, and returns immediately.
+     */
+    public void start() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                serve();
+            }
+        }, "evaluation-worker-" + getPort());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Accepts the connections until the worker is closed. This blocks the calling thread.
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                //the worker is closed
+                return;
+            }
+
+            synchronized (connections) {
+                if (serverSocket.isClosed()) {
+                    closeQuietly(socket);
+                    return;
+                }
+                connections.add(socket);
+            }
+
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    handle(socket);
+                }
+            }, "evaluation-worker-connection");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * @return the TCP port the worker listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return the number of trees evaluated so far, over all the connections
+     */
+    public long getEvaluatedCount() {
+        return evaluated.get();
+    }
+
+    /**
+     * Stops accepting connections, and closes the open ones. The masters send the batches in flight on this worker
+     * to their other workers.
+     */
+    public void close() {
+        synchronized (connections) {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                //nothing to do
+            }
+
+            for (Socket socket : connections) {
+                closeQuietly(socket);
+            }
+            connections.clear();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            //nothing to do
+        }
+    }
+
+    private static String getStackTrace(Throwable throwable) {
+        StringWriter trace = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(trace));
+
+        //writeUTF takes at most 64KB
+        String result = trace.toString();
+        return result.length() > MAX_TRACE_LENGTH ? result.substring(0, MAX_TRACE_LENGTH) : result;
+    }
+
+    private void handle(Socket socket) {
+        try {
+            socket.setTcpNoDelay(true);
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            //handshake: both sides must agree on the grammar
+            if (in.readInt() != MAGIC) {
+                return;
+            }
+            long fingerprint = in.readLong();
+            out.writeInt(MAGIC);
+            out.writeLong(codec.getFingerprint());
+            out.flush();
+
+            if (fingerprint != codec.getFingerprint()) {
+                return;
+            }
+
+            List<Node> nodes = new ArrayList<Node>();
+
+            while (true) {
+                int batchId;
+                try {
+                    batchId = in.readInt();
+                } catch (EOFException e) {
+                    //the master closed the connection
+                    return;
+                }
+
+                int count = in.readInt();
+                nodes.clear();
+                for (int i = 0; i < count; i++) {
+                    nodes.add(codec.read(in));
+                }
+
+                double[] fitness = new double[count];
+                try {
+                    fitnessFunction.evaluateAll(nodes, fitness);
+                } catch (RuntimeException e) {
+                    //the master gets the stack trace, and the connection is closed
+                    out.writeInt(FAILED);
+                    out.writeUTF(getStackTrace(e));
+                    out.flush();
+                    return;
+                }
+                evaluated.addAndGet(count);
+
+                out.writeInt(batchId);
+                for (double value : fitness) {
+                    out.writeDouble(value);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            //the connection is lost, the master sends the batch to another worker
+        } finally {
+            synchronized (connections) {
+                connections.remove(socket);
+            }
+            closeQuietly(socket);
+        }
+    }
+}
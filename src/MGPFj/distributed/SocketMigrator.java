@@ -0,0 +1,368 @@
+package MGPFj.distributed;
+
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.engine.Migrator;
+import MGPFj.grammar.CFG;
+import MGPFj.serialization.TreeCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exchanges migrants between islands over TCP. Each island is an engine with its own SocketMigrator,
+ * usually in its own process. <p/>
+ * Every few generations, the best candidates are serialized and queued for the neighbours. A background thread
+ * sends the queue, and other background threads receive the migrants of the other islands, so the engine never
+ * waits for the network. If the queue is full (eg, a neighbour is slow or down), the oldest message is dropped. <p/>
+ * When an island reaches the max fitness, it announces the termination, and each island forwards the announcement
+ * to its neighbours once, so all the islands of a ring stop. <p/>
+ * [NOTE: all the islands must build the same CFG.]
+ */
+public class SocketMigrator implements Migrator {
+
+    static final int MAGIC = 0x4D47504D;
+
+    private static final byte MIGRANTS = 1;
+    private static final byte TERMINATE = 2;
+    private static final int OUTBOX_CAPACITY = 16;
+    private static final int CONNECT_TIMEOUT = 1000;
+
+    private final TreeCodec codec;
+    private final ServerSocket serverSocket;
+    private final List<InetSocketAddress> neighbours;
+    private final int interval;
+    private final int migrantCount;
+
+    private final ConcurrentLinkedQueue<Node> inbox = new ConcurrentLinkedQueue<Node>();
+    private final LinkedBlockingQueue<byte[]> outbox = new LinkedBlockingQueue<byte[]>(OUTBOX_CAPACITY);
+    private final AtomicBoolean terminated = new AtomicBoolean();
+
+    private final AtomicLong sentMigrants = new AtomicLong();
+    private final AtomicLong receivedMigrants = new AtomicLong();
+    private final AtomicLong droppedMessages = new AtomicLong();
+
+    private Thread sender;
+    private volatile boolean closed;
+
+    /**
+     * Listens on the loopback interface, so all the islands must be on this machine.
+     * @param cfg the CFG of the trees
+     * @param port the TCP port this island listens on, or 0 for any free port
+     * @param neighbours the islands which receive the migrants of this island (eg, the next island of a ring)
+     * @param interval number of generations between two migrations
+     * @param migrantCount number of best candidates sent in each migration
+     * @throws IOException if the port cannot be opened
+     */
+    public SocketMigrator(CFG cfg, int port, List<InetSocketAddress> neighbours, int interval, int migrantCount)
+            throws IOException {
+        this(cfg, port, InetAddress.getLoopbackAddress(), neighbours, interval, migrantCount);
+    }
+
+    /**
+     * @param cfg the CFG of the trees
+     * @param port the TCP port this island listens on, or 0 for any free port
+     * @param bindAddress the address to listen on (eg, all the interfaces, for islands on other machines)
+     * @param neighbours the islands which receive the migrants of this island (eg, the next island of a ring)
+     * @param interval number of generations between two migrations
+     * @param migrantCount number of best candidates sent in each migration
+     * @throws IOException if the port cannot be opened
+     */
+    public SocketMigrator(CFG cfg, int port, InetAddress bindAddress, List<InetSocketAddress> neighbours,
+                          int interval, int migrantCount) throws IOException {
+
+        if (interval <= 0 || migrantCount <= 0) {
+            throw new RuntimeException("Migration interval and migrant count must be positive");
+        }
+
+        this.codec = new TreeCodec(cfg);
+        this.serverSocket = new ServerSocket(port, 50, bindAddress);
+        this.neighbours = neighbours;
+        this.interval = interval;
+        this.migrantCount = migrantCount;
+    }
+
+    /**
+     * Starts the background threads which send and receive the migrants.
+     */
+    public void start() {
+        Thread receiver = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        }, "migrator-receiver-" + getPort());
+        receiver.setDaemon(true);
+        receiver.start();
+
+        sender = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                send();
+            }
+        }, "migrator-sender-" + getPort());
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @Override
+    public void emigrate(int generation, RankedCandidate[] rankedPopulation) {
+
+        if (generation == 0 || generation % interval != 0) {
+            return;
+        }
+
+        //the trees are serialized here, so the sender thread never touches the population
+        int count = Math.min(migrantCount, rankedPopulation.length);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(MIGRANTS);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                codec.write(rankedPopulation[i].getNode(), out);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        enqueue(bytes.toByteArray());
+        sentMigrants.addAndGet(count);
+    }
+
+    @Override
+    public List<Node> immigrate(int max) {
+        List<Node> immigrants = new ArrayList<Node>();
+
+        Node node;
+        while ((node = inbox.poll()) != null) {
+            immigrants.add(node);
+        }
+
+        //only the newest ones are kept
+        return immigrants.size() > max ? immigrants.subList(immigrants.size() - max, immigrants.size()) : immigrants;
+    }
+
+    @Override
+    public void announceTermination() {
+        if (terminated.compareAndSet(false, true)) {
+            enqueue(new byte[]{TERMINATE});
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.get();
+    }
+
+    /**
+     * @return the TCP port this island listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return the number of candidates sent so far (to each neighbour)
+     */
+    public long getSentMigrants() {
+        return sentMigrants.get();
+    }
+
+    /**
+     * @return the number of candidates received so far
+     */
+    public long getReceivedMigrants() {
+        return receivedMigrants.get();
+    }
+
+    /**
+     * @return the number of messages dropped because the queue was full
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    /**
+     * Sends the queued messages (eg, a termination announcement), waiting at most a few seconds,
+     * and stops the background threads.
+     */
+    public void close() {
+        closed = true;
+
+        if (sender != null) {
+            sender.interrupt();
+            try {
+                sender.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            //nothing to do
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SocketMigrator: port: " + getPort() + ", sent: " + sentMigrants.get()
+                + ", received: " + receivedMigrants.get() + ", dropped messages: " + droppedMessages.get();
+    }
+
+    private void enqueue(byte[] message) {
+        while (!outbox.offer(message)) {
+            if (outbox.poll() != null) {
+                droppedMessages.incrementAndGet();
+            }
+        }
+    }
+
+    private void send() {
+        Connection[] connections = new Connection[neighbours.size()];
+        for (int i = 0; i < connections.length; i++) {
+            connections[i] = new Connection(neighbours.get(i));
+        }
+
+        while (true) {
+            byte[] message;
+            try {
+                message = closed ? outbox.poll() : outbox.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                //closing, the rest of the queue is still sent
+                message = outbox.poll();
+            }
+
+            if (message == null) {
+                if (closed) break;
+                continue;
+            }
+
+            for (Connection connection : connections) {
+                connection.send(message);
+            }
+        }
+
+        for (Connection connection : connections) {
+            connection.disconnect();
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                //the migrator is closed
+                return;
+            }
+
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    receive(socket);
+                }
+            }, "migrator-connection");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void receive(Socket socket) {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            //handshake: both sides must agree on the grammar
+            if (in.readInt() != MAGIC || in.readLong() != codec.getFingerprint()) {
+                return;
+            }
+
+            while (true) {
+                byte type = in.readByte();
+
+                if (type == MIGRANTS) {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        inbox.add(codec.read(in));
+                    }
+                    receivedMigrants.addAndGet(count);
+                } else if (type == TERMINATE) {
+                    //forwarded once, so the announcement goes around the ring and stops
+                    announceTermination();
+                } else {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            //the neighbour is gone, it connects again if it comes back
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //nothing to do
+            }
+        }
+    }
+
+    private class Connection {
+        private final InetSocketAddress address;
+        private Socket socket;
+        private DataOutputStream out;
+
+        private Connection(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        /**
+         * Sends the message, connecting first if needed. A message which cannot be sent is lost.
+         */
+        private void send(byte[] message) {
+            try {
+                if (socket == null) {
+                    socket = new Socket();
+                    socket.connect(address, CONNECT_TIMEOUT);
+                    socket.setTcpNoDelay(true);
+                    out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    out.writeInt(MAGIC);
+                    out.writeLong(codec.getFingerprint());
+                }
+
+                out.write(message);
+                out.flush();
+            } catch (IOException e) {
+                disconnect();
+            }
+        }
+
+        private void disconnect() {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    //nothing to do
+                }
+            }
+
+            socket = null;
+            out = null;
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package MGPFj.engine;
+
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.Offspring;
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.fitness.FitnessFunction;
+import MGPFj.genetic_operators.GeneticOperator;
+import MGPFj.genetic_operators.crossover.GBC;
+import MGPFj.genetic_operators.mutation.GBM;
+import MGPFj.genetic_operators.reproduction.DirectCopy;
+import MGPFj.grammar.CFG;
+import MGPFj.initialize.GBIM;
+import MGPFj.initialize.Initializer;
+import MGPFj.select.Selector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An asynchronous, generation free, parallel engine. <p/>
+ * Each worker thread repeatedly selects parents, breeds two children (so both children of a crossover are kept),
+ * evaluates them and inserts each one into the shared population, without waiting for the other workers. A slow
+ * evaluation (eg, of a large tree) only delays its own worker, so there is no generation barrier. <p/>
+ * The population is a lock free array. Parents are selected by tournaments over random slots, and a child
+ * replaces the worst of a few random slots (inverse tournament) with a compare-and-set, if it is better.
+ * The {@link EvolutionListener}s only get {@link EvolutionListener#bestImproved(int, RankedCandidate)}, where the
+ * generation is the number of created offspring divided by the population size. <p/>
+ * [NOTE: the fitness function and the genetic operators are called from several threads at once.]
+ */
+public class AsynchronousEngine {
+    private final Initializer initializer;
+    private final FitnessFunction fitnessFunction;
+    private final GeneticOperator[] operators;
+    private final Integer[] probabilities;
+
+    private final int popSize;
+    private final int threads;
+    private final int tournamentSize;
+    private final long evaluations;
+    private final boolean terminateOnReachingMaxFitness;
+    private final List<EvolutionListener> listeners;
+
+    private OperatorStatistics[] statistics;
+
+    private static final int LISTENER_QUEUE_CAPACITY = 1024;
+    private static final long LISTENER_CLOSE_TIMEOUT_MILLIS = 10000;
+
+    private AsynchronousEngine(Initializer initializer,
+                               FitnessFunction fitnessFunction,
+                               GeneticOperator[] operators,
+                               Integer[] probabilities,
+                               boolean terminateOnReachingMaxFitness, int popSize, int threads, int tournamentSize,
+                               long evaluations, List<EvolutionListener> listeners) {
+        this.initializer = initializer;
+        this.fitnessFunction = fitnessFunction;
+        this.operators = operators;
+        this.probabilities = probabilities;
+        this.terminateOnReachingMaxFitness = terminateOnReachingMaxFitness;
+
+        this.popSize = popSize;
+        this.threads = threads;
+        this.tournamentSize = tournamentSize;
+        this.evaluations = evaluations;
+        this.listeners = listeners;
+
+        this.statistics = createStatistics();
+    }
+
+
+    /**
+     * Runs until the given number of offspring are created, or until the max fitness is reached.
+     * @param loggerEnabled prints the best candidate whenever it improves, with a {@link SummaryLogger}
+     * @return the final population, sorted from the best to the worst.
+     * @throws RuntimeException if a worker failed (eg, the fitness function threw), with the failure as the cause
+     */
+    public RankedCandidate[] run(boolean loggerEnabled) {
+
+        List<EvolutionListener> runListeners = new ArrayList<EvolutionListener>(listeners);
+        if (loggerEnabled) {
+            runListeners.add(new SummaryLogger(fitnessFunction));
+        }
+        ListenerDispatcher dispatcher = new ListenerDispatcher(runListeners, LISTENER_QUEUE_CAPACITY,
+                LISTENER_CLOSE_TIMEOUT_MILLIS);
+
+        //the listener thread is stopped and its queued events are delivered, even if the run fails
+        try {
+            return evolve(dispatcher);
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    private RankedCandidate[] evolve(final ListenerDispatcher dispatcher) {
+
+        //creating and evaluating the initial population
+        RankedCandidate[] initialPopulation =
+                RankedCandidate.rankAndSort(initializer.generate(0, popSize, null), fitnessFunction);
+
+        final AtomicReferenceArray<RankedCandidate> population =
+                new AtomicReferenceArray<RankedCandidate>(initialPopulation);
+        final AtomicReference<RankedCandidate> best = new AtomicReference<RankedCandidate>(initialPopulation[0]);
+        final AtomicLong created = new AtomicLong();
+        dispatcher.bestImproved(0, initialPopulation[0]);
+
+        final OffspringScheduler[] schedulers = new OffspringScheduler[threads];
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<Future<?>>(threads);
+
+        for (int t = 0; t < threads; t++) {
+            final Random random = new Random();
+            final OffspringScheduler scheduler =
+                    new OffspringScheduler(operators, probabilities, DuplicatePolicy.NONE, random);
+            schedulers[t] = scheduler;
+
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    Selector selector = new ArrayTournamentSelector(population, tournamentSize, random);
+
+                    try {
+                        while (true) {
+                            //a crossover creates 2 children, so 2 slots are claimed at a time
+                            long claimed = created.getAndAdd(2);
+                            if (claimed >= evaluations) {
+                                break;
+                            }
+
+                            //termination check
+                            if (terminateOnReachingMaxFitness && best.get().getFitness() == 0.0) {
+                                break;
+                            }
+
+                            int size = (int) Math.min(2, evaluations - claimed);
+                            Offspring[] offspring = scheduler.schedule(selector, size);
+
+                            List<Node> nodes = new ArrayList<Node>(size);
+                            double[] knownFitness = new double[size];
+                            for (int i = 0; i < size; i++) {
+                                nodes.add(offspring[i].getNode());
+                                knownFitness[i] = offspring[i].getCachedFitness();
+                            }
+
+                            //each child competes for its own slot
+                            for (RankedCandidate child : RankedCandidate.rankAndSort(nodes, knownFitness,
+                                    fitnessFunction)) {
+                                if (insert(population, child, random)) {
+                                    updateBest(best, child, claimed + size, dispatcher);
+                                }
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        //the other workers stop too, the run fails anyway
+                        created.set(evaluations);
+                        throw e;
+                    }
+                }
+            }));
+        }
+
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+            //the first failure of a worker fails the run
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Asynchronous run interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Asynchronous worker failed", e.getCause());
+        }
+
+        OperatorStatistics[] runStatistics = createStatistics();
+        for (OffspringScheduler scheduler : schedulers) {
+            for (int i = 0; i < runStatistics.length; i++) {
+                runStatistics[i].add(scheduler.getStatistics()[i]);
+            }
+        }
+        this.statistics = runStatistics;
+
+        RankedCandidate[] result = new RankedCandidate[population.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = population.get(i);
+        }
+        Arrays.sort(result);
+
+        return result;
+    }
+
+    /**
+     * @return the attempts, failures and time of each genetic operator, summed over all the workers of the last run.
+     */
+    public OperatorStatistics[] getOperatorStatistics() {
+        return statistics;
+    }
+
+    private OperatorStatistics[] createStatistics() {
+        OperatorStatistics[] result = new OperatorStatistics[operators.length];
+        for (int i = 0; i < operators.length; i++) {
+            result[i] = new OperatorStatistics(operators[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the worst of a few random slots with the child, if the child is better.
+     * @return true if the child was inserted
+     */
+    private boolean insert(AtomicReferenceArray<RankedCandidate> population, RankedCandidate child, Random random) {
+
+        //another worker may replace the slot in between, then the tournament is done again.
+        while (true) {
+            int worstIndex = random.nextInt(population.length());
+            RankedCandidate worst = population.get(worstIndex);
+
+            for (int i = 1; i < tournamentSize; i++) {
+                int index = random.nextInt(population.length());
+                RankedCandidate candidate = population.get(index);
+                if (candidate.getFitness() > worst.getFitness()) {
+                    worst = candidate;
+                    worstIndex = index;
+                }
+            }
+
+            if (child.compareTo(worst) > 0) {
+                return false;
+            }
+
+            if (population.compareAndSet(worstIndex, worst, child)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param created number of offspring created so far
+     */
+    private void updateBest(AtomicReference<RankedCandidate> best, RankedCandidate child, long created,
+                            ListenerDispatcher dispatcher) {
+        if (child.compareTo(best.get()) >= 0) {
+            return;
+        }
+
+        //improvements are rare, the lock keeps the events in the order of the improvements
+        synchronized (best) {
+            if (child.compareTo(best.get()) < 0) {
+                best.set(child);
+                dispatcher.bestImproved((int) Math.min(created / popSize, Integer.MAX_VALUE), child);
+            }
+        }
+    }
+
+    /**
+     * Selects the best of a few random slots of the shared population.
+     */
+    private static class ArrayTournamentSelector implements Selector {
+        private final AtomicReferenceArray<RankedCandidate> population;
+        private final int tournamentSize;
+        private final Random random;
+
+        private ArrayTournamentSelector(AtomicReferenceArray<RankedCandidate> population, int tournamentSize,
+                                        Random random) {
+            this.population = population;
+            this.tournamentSize = tournamentSize;
+            this.random = random;
+        }
+
+        @Override
+        public Node next() {
+            return nextCandidate().getNode();
+        }
+
+        @Override
+        public RankedCandidate nextCandidate() {
+            RankedCandidate winner = population.get(random.nextInt(population.length()));
+
+            for (int i = 1; i < tournamentSize; i++) {
+                RankedCandidate candidate = population.get(random.nextInt(population.length()));
+                if (candidate.getFitness() < winner.getFitness()) {
+                    winner = candidate;
+                }
+            }
+
+            return winner;
+        }
+    }
+
+
+    //Creator stuff
+
+    public static AsynchronousEngineLazyCreator start(CFG cfg, FitnessFunction fitnessFunction, int maxDepth,
+                                                      int popSize, long evaluations) {
+        return new AsynchronousEngineLazyCreator(cfg, fitnessFunction, maxDepth, popSize, evaluations);
+    }
+
+    public static AsynchronousEngineLazyCreator start(CFG cfg, FitnessFunction fitnessFunction) {
+        return new AsynchronousEngineLazyCreator(cfg, fitnessFunction, 5, 100, 10000);
+    }
+
+
+    public static class AsynchronousEngineLazyCreator {
+        private final FitnessFunction fitnessFunction;
+        private final int popSize;
+        private final long evaluations;
+
+        private Initializer initializer;
+        private GeneticOperator[] operators;
+        private Integer[] probabilities;
+        private int threads;
+        private int tournamentSize;
+        private boolean terminateOnReachingMaxFitness; //stop iteration.
+        private List<EvolutionListener> listeners = new ArrayList<EvolutionListener>();
+
+
+        private AsynchronousEngineLazyCreator(CFG cfg, FitnessFunction fitnessFunction, int maxDepth, int popSize,
+                                              long evaluations) {
+            this.fitnessFunction = fitnessFunction;
+            this.popSize = popSize;
+            this.evaluations = evaluations;
+
+            this.initializer = new GBIM(cfg, maxDepth);
+            //default genetic operators::
+            GeneticOperator reproduction = new DirectCopy();
+            GeneticOperator crossover = new GBC(cfg, maxDepth);
+            GeneticOperator mutation = new GBM(cfg, maxDepth);
+
+            this.operators = new GeneticOperator[]{reproduction, crossover, mutation};
+            this.probabilities = new Integer[]{5, 90, 2};
+
+            this.threads = Runtime.getRuntime().availableProcessors();
+            this.tournamentSize = 4;
+            this.terminateOnReachingMaxFitness = false;
+        }
+
+        public AsynchronousEngineLazyCreator setInitializer (Initializer initializer) {
+            this.initializer = initializer;
+            return this;
+        }
+
+        /**
+         * This will change the probabilities of the default genetic operators. <p/>
+         * Exactly one operator is applied for each offspring. The probabilities are relative to each other. <p/>
+         * [NOTE: do not call this method if you already specified your custom genetic operators.]
+         */
+        public AsynchronousEngineLazyCreator setDefaultProbabilities(int reproductionProbability,
+                                                                     int crossoverProbability,
+                                                                     int mutationProbability){
+            this.probabilities[0] = reproductionProbability;
+            this.probabilities[1] = crossoverProbability;
+            this.probabilities[2] = mutationProbability;
+
+            return this;
+        }
+
+        /**
+         * This will replace default genetic operators.
+         * @param geneticOperators
+         * @param probabilities relative probabilities of the operators
+         */
+        public AsynchronousEngineLazyCreator setGeneticOperators(GeneticOperator[] geneticOperators,
+                                                                 Integer[] probabilities) {
+
+            if (geneticOperators.length != probabilities.length) {
+                throw new RuntimeException("length of GeneticOperators and probabilities are different");
+            }
+
+            this.operators = geneticOperators;
+            this.probabilities = probabilities;
+
+            return this;
+        }
+
+        /**
+         * @param threads number of worker threads. The default is the number of available processors.
+         */
+        public AsynchronousEngineLazyCreator setThreads(int threads) {
+
+            if (threads <= 0) {
+                throw new RuntimeException("Thread count must be positive");
+            }
+
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * @param tournamentSize number of slots competing in selection and in replacement. The default is 4.
+         */
+        public AsynchronousEngineLazyCreator setTournamentSize(int tournamentSize) {
+
+            if (tournamentSize <= 0) {
+                throw new RuntimeException("Tournament size must be positive");
+            }
+
+            this.tournamentSize = tournamentSize;
+            return this;
+        }
+
+        public AsynchronousEngineLazyCreator setTerminateOnMaxFitness(boolean terminateOnMaxFitness) {
+            this.terminateOnReachingMaxFitness = terminateOnMaxFitness;
+            return this;
+        }
+
+        /**
+         * The listener is called on a background thread, see {@link EvolutionListener}.
+         * @param listener the listener
+         */
+        public AsynchronousEngineLazyCreator addListener(EvolutionListener listener) {
+            this.listeners.add(listener);
+
+            return this;
+        }
+
+        public AsynchronousEngine finish() {
+            return new AsynchronousEngine(initializer, fitnessFunction, operators, probabilities,
+                    terminateOnReachingMaxFitness, popSize, threads, tournamentSize, evaluations,
+                    new ArrayList<EvolutionListener>(listeners));
+        }
+    }
+}
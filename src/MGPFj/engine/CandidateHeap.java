@@ -0,0 +1,109 @@
+package MGPFj.engine;
+
+import MGPFj.chromosome.RankedCandidate;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size binary heap of candidates, where the worst candidate is at the top. <p/>
+ * The candidates are kept in a plain array, so they can be picked by index (eg, for tournaments),
+ * and the worst one is replaced in place in O(log n) without allocating.
+ */
+class CandidateHeap {
+
+    private final RankedCandidate[] heap;
+    private int size;
+
+    CandidateHeap(int capacity) {
+        this.heap = new RankedCandidate[capacity];
+    }
+
+    /**
+     * @param candidate the candidate to add
+     * @throws RuntimeException if the heap is full
+     */
+    void add(RankedCandidate candidate) {
+        if (size == heap.length) {
+            throw new RuntimeException("Heap is full");
+        }
+
+        heap[size] = candidate;
+        siftUp(size);
+        size++;
+    }
+
+    /**
+     * @return the worst candidate
+     */
+    RankedCandidate peekWorst() {
+        return heap[0];
+    }
+
+    /**
+     * Replaces the worst candidate with the given one.
+     * @param candidate the new candidate
+     * @return the replaced candidate
+     */
+    RankedCandidate replaceWorst(RankedCandidate candidate) {
+        RankedCandidate worst = heap[0];
+        heap[0] = candidate;
+        siftDown(0);
+        return worst;
+    }
+
+    /**
+     * @param i index between 0 and size - 1. The order of the indices has no meaning other than the heap order.
+     * @return the candidate at the index
+     */
+    RankedCandidate get(int i) {
+        return heap[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return a new array of all the candidates, sorted from the best to the worst.
+     */
+    RankedCandidate[] toSortedArray() {
+        RankedCandidate[] result = Arrays.copyOf(heap, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private void siftUp(int i) {
+        RankedCandidate candidate = heap[i];
+
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].compareTo(candidate) >= 0) break;
+
+            heap[i] = heap[parent];
+            i = parent;
+        }
+
+        heap[i] = candidate;
+    }
+
+    private void siftDown(int i) {
+        RankedCandidate candidate = heap[i];
+        int half = size >>> 1;
+
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+
+            if (right < size && heap[right].compareTo(heap[child]) > 0) {
+                child = right;
+            }
+
+            if (candidate.compareTo(heap[child]) >= 0) break;
+
+            heap[i] = heap[child];
+            i = child;
+        }
+
+        heap[i] = candidate;
+    }
+}
@@ -0,0 +1,255 @@
+package MGPFj.engine;
+
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.genetic_operators.GeneticOperator;
+import MGPFj.serialization.PopulationReader;
+import MGPFj.serialization.PopulationWriter;
+import MGPFj.serialization.TreeCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes checkpoints of an {@link EvolutionState} on a background thread, and reads them back. <p/>
+ * The engine only copies the lists of the state, so the generation loop never waits for the disk.
+ * If a new checkpoint arrives while the previous one is still being written, only the newest one is kept. <p/>
+ * A checkpoint is written to a temporary file, synced, and then renamed over the previous checkpoint,
+ * so a crash leaves either the old or the new checkpoint, never a partial one. <p/>
+ * The file holds the generation counter, the evaluations and time spent so far (so a budget goes on where it
+ * stopped), the random generator of the state (which chooses the operators and the parents, and seeds the generator
+ * of the engine at each generation), the operator statistics and counters, and then the elites and the population
+ * with their known fitness (see {@link PopulationWriter}).
+ */
+class Checkpointer {
+
+    private static final int MAGIC = 0x4D475043;
+    private static final int VERSION = 3;
+
+    private final File file;
+    private final TreeCodec codec;
+    private final ExecutorService executor;
+    private final AtomicReference<EvolutionState.Snapshot> pending = new AtomicReference<EvolutionState.Snapshot>();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    Checkpointer(File file, TreeCodec codec) {
+        this.file = file;
+        this.codec = codec;
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "checkpoint-writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Queues a checkpoint of the state, and returns immediately.
+     */
+    void submit(EvolutionState state) {
+        if (pending.getAndSet(state.snapshot()) != null) {
+            //the older one was not started yet, it is replaced
+            skipped.incrementAndGet();
+            return;
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                EvolutionState.Snapshot snapshot = pending.getAndSet(null);
+                if (snapshot == null) return;
+
+                try {
+                    write(snapshot);
+                    written.incrementAndGet();
+                } catch (IOException e) {
+                    //the run goes on, the previous checkpoint is still there
+                    System.err.println("Checkpoint failed: " + e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits until the queued checkpoint is written.
+     */
+    void finish() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long getWrittenCount() {
+        return written.get();
+    }
+
+    long getSkippedCount() {
+        return skipped.get();
+    }
+
+    private void write(EvolutionState.Snapshot snapshot) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+
+        FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.DSYNC);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(snapshot.generation);
+            out.writeLong(snapshot.evaluations);
+            out.writeLong(snapshot.elapsedNanos);
+            out.writeInt(snapshot.random.length);
+            out.write(snapshot.random);
+            out.writeLong(snapshot.fallbacks);
+            out.writeDouble(snapshot.duplicateRate);
+            out.writeInt(snapshot.statistics.length);
+            for (long[] statistics : snapshot.statistics) {
+                for (long value : statistics) {
+                    out.writeLong(value);
+                }
+            }
+            out.writeInt(snapshot.elites.length);
+            out.writeInt(snapshot.population.size());
+            out.flush();
+
+            PopulationWriter writer = new PopulationWriter(codec, channel);
+            writer.writeAll(snapshot.elites);
+            for (int i = 0; i < snapshot.population.size(); i++) {
+                writer.write(snapshot.population.get(i), snapshot.knownFitness.get(i));
+            }
+            writer.close();
+        } finally {
+            channel.close();
+        }
+
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @param file the checkpoint
+     * @param codec the codec of the CFG of the run
+     * @param operators the genetic operators of the run
+     * @param probabilities the probabilities of the operators
+     * @param duplicatePolicy the duplicate policy of the run
+     * @return the state, as it was when the checkpoint was taken
+     * @throws IOException if reading fails, or the checkpoint belongs to another CFG or other operators
+     */
+    static EvolutionState read(File file, TreeCodec codec, GeneticOperator[] operators, Integer[] probabilities,
+                               DuplicatePolicy duplicatePolicy) throws IOException {
+
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            //not buffered, so the population stream starts right after the header
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a checkpoint: " + file);
+            }
+
+            int generation = in.readInt();
+            long evaluations = in.readLong();
+            long elapsedNanos = in.readLong();
+            byte[] randomBytes = new byte[in.readInt()];
+            in.readFully(randomBytes);
+            long fallbacks = in.readLong();
+            double duplicateRate = in.readDouble();
+
+            int operatorCount = in.readInt();
+            if (operatorCount != operators.length) {
+                throw new IOException("The checkpoint was written with " + operatorCount + " genetic operators");
+            }
+
+            Random random = deserializeRandom(randomBytes);
+            OffspringScheduler scheduler = new OffspringScheduler(operators, probabilities, duplicatePolicy, random);
+            for (OperatorStatistics statistics : scheduler.getStatistics()) {
+                statistics.restore(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+            }
+            scheduler.restore(fallbacks, duplicateRate);
+
+            int eliteCount = in.readInt();
+            int populationSize = in.readInt();
+
+            PopulationReader reader = new PopulationReader(codec, channel);
+            RankedCandidate[] elites = new RankedCandidate[eliteCount];
+            List<Node> population = new ArrayList<Node>(populationSize);
+            List<Double> knownFitness = new ArrayList<Double>(populationSize);
+
+            for (int i = 0; i < eliteCount + populationSize; i++) {
+                if (!reader.next()) {
+                    throw new IOException("The checkpoint is cut: " + file);
+                }
+
+                if (i < eliteCount) {
+                    elites[i] = RankedCandidate.create(reader.getNode(), reader.getFitness());
+                } else {
+                    population.add(reader.getNode());
+                    knownFitness.add(reader.getFitness());
+                }
+            }
+
+            EvolutionState state = new EvolutionState(population, knownFitness, elites, generation, random, scheduler);
+            state.evaluations = evaluations;
+            state.elapsedNanos = elapsedNanos;
+            return state;
+        } finally {
+            channel.close();
+        }
+    }
+
+    static byte[] serializeRandom(Random random) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(random);
+            out.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Random deserializeRandom(byte[] bytes) throws IOException {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        try {
+            return (Random) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        } finally {
+            in.close();
+        }
+    }
+}
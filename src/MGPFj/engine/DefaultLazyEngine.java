@@ -1,8 +1,14 @@
 package MGPFj.engine;
 
 import MGPFj.chromosome.Node;
+import MGPFj.chromosome.Offspring;
 import MGPFj.chromosome.RankedCandidate;
+import MGPFj.fitness.CaseFitnessFunction;
 import MGPFj.fitness.FitnessFunction;
+import MGPFj.fitness.FitnessWrapper;
+import MGPFj.fitness.GenerationAware;
+import MGPFj.fitness.ParallelFitness;
+import MGPFj.fitness.SubsampledFitness;
 import MGPFj.genetic_operators.GeneticOperator;
 import MGPFj.genetic_operators.crossover.GBC;
 import MGPFj.genetic_operators.mutation.GBM;
@@ -12,8 +18,14 @@ import MGPFj.initialize.GBIM;
 import MGPFj.initialize.Initializer;
 import MGPFj.select.Selector;
 import MGPFj.select.TournamentSelector;
+import MGPFj.serialization.TreeCodec;
+import MGPFj.simplify.Simplifier;
+import MGPFj.utils.Tracer;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -23,115 +35,410 @@ public class DefaultLazyEngine {
     private final FitnessFunction fitnessFunction;
     private final GeneticOperator[] operators;
     private final Integer[] probabilities;
+    private final Simplifier simplifier;
+    private final DuplicatePolicy duplicatePolicy;
+    private final Migrator migrator;
 
     private final int maxDepth;
     private final int popSize;
+    private final int eliteCount;
     private final int generations;
     private final boolean terminateOnReachingMaxFitness;
+    private final File checkpointFile;
+    private final int checkpointInterval;
+    private final long maxEvaluations;
+    private final long maxMillis;
+
+    private final List<EvolutionListener> listeners;
     private final Random random;
 
-    int mut = 0;
+    private final EngineMetrics metrics;
+    private final MeteredFitness meteredFitness;
+
+    private EvolutionState lastState;
+
+    private static final int LISTENER_QUEUE_CAPACITY = 1024;
+    private static final long LISTENER_CLOSE_TIMEOUT_MILLIS = 10000;
 
     private DefaultLazyEngine(CFG cfg,
                               Initializer initializer,
                               FitnessFunction fitnessFunction,
                               GeneticOperator[] operators,
                               Integer[] probabilities,
-                              boolean terminateOnReachingMaxFitness, int maxDepth, int popSize, int generations) {
+                              Simplifier simplifier,
+                              DuplicatePolicy duplicatePolicy,
+                              Migrator migrator,
+                              File checkpointFile, int checkpointInterval,
+                              long maxEvaluations, long maxMillis,
+                              List<EvolutionListener> listeners, Random random,
+                              boolean terminateOnReachingMaxFitness, int maxDepth, int popSize, int eliteCount,
+                              int generations) {
         this.cfg = cfg;
         this.initializer = initializer;
         this.fitnessFunction = fitnessFunction;
         this.operators = operators;
         this.probabilities = probabilities;
+        this.simplifier = simplifier;
+        this.duplicatePolicy = duplicatePolicy;
+        this.migrator = migrator;
         this.terminateOnReachingMaxFitness = terminateOnReachingMaxFitness;
 
         this.maxDepth = maxDepth;
         this.popSize = popSize;
+        this.eliteCount = eliteCount;
         this.generations = generations;
 
-        random = new Random();
+        this.checkpointFile = checkpointFile;
+        this.checkpointInterval = checkpointInterval;
+        this.maxEvaluations = maxEvaluations;
+        this.maxMillis = maxMillis;
+        this.listeners = listeners;
+        this.random = random;
+
+        this.metrics = new EngineMetrics(operators, fitnessFunction);
+        this.meteredFitness = new MeteredFitness(fitnessFunction, metrics);
     }
 
 
+    /**
+     * Runs all the generations from the start.
+     * @param loggerEnabled prints a summary of each generation
+     * @return the last population, sorted from the best to the worst.
+     */
     public RankedCandidate[] run(boolean loggerEnabled) {
+        return run(createState(), loggerEnabled);
+    }
+
+    /**
+     * Continues a run from a checkpoint written by this engine (see
+     * {@link DefaultEngineLazyCreator#setCheckpointing(File, int)}). The engine must be created with the same CFG,
+     * genetic operators and settings as the engine which wrote the checkpoint. <p/>
+     * [NOTE: the population, the known fitness, the generation counter, the spent budget, the operator statistics
+     * and the random generators are restored exactly. So a seeded run (see {@link DefaultEngineLazyCreator#setSeed})
+     * goes on exactly like the uninterrupted run, except with custom initializers or genetic operators which have
+     * their own random generators.]
+     * @param checkpoint the checkpoint file
+     * @param loggerEnabled prints a summary of each generation
+     * @return the last population, sorted from the best to the worst.
+     * @throws IOException if the checkpoint cannot be read, or belongs to another CFG
+     */
+    public RankedCandidate[] resume(File checkpoint, boolean loggerEnabled) throws IOException {
+        return run(Checkpointer.read(checkpoint, new TreeCodec(cfg), operators, probabilities, duplicatePolicy),
+                loggerEnabled);
+    }
+
+    /**
+     * @return a new state with the initial population of the initializer (see {@link Initializer#seed}),
+     * at generation 0.
+     */
+    public EvolutionState createState() {
+        List<Node> initialPopulation = new ArrayList<Node>(popSize);
+        List<Double> knownFitness = new ArrayList<Double>(popSize);
+
+        long start = System.nanoTime();
+        initializer.seed(popSize, initialPopulation, knownFitness);
+        metrics.addInitialization(System.nanoTime() - start);
+
+        //each state draws its own generator, so the runs of a seeded engine are reproducible in order
+        Random random = new Random(this.random.nextLong());
+        return new EvolutionState(initialPopulation, knownFitness, new RankedCandidate[0], 0, random,
+                new OffspringScheduler(operators, probabilities, duplicatePolicy, random));
+    }
 
-        //creating initial population
-        List<Node> currentPopulation =  initializer.generate(0, popSize, null);
+    /**
+     * Runs the remaining generations of a state.
+     * @param state the state, which is advanced in place
+     * @param loggerEnabled prints a summary of each generation (see {@link SummaryLogger})
+     * @return the last population, sorted from the best to the worst.
+     */
+    public RankedCandidate[] run(EvolutionState state, boolean loggerEnabled) {
+        return run(state, generations - state.generation + 1, loggerEnabled);
+    }
 
-        RankedCandidate[] rankedCandidates;
-        int currentGen = 0;
+    /**
+     * Runs at most generationCount generations of a state, and pauses. The run is continued by calling this
+     * method again with the same state, so a caller can decide after each step whether the run is worth
+     * continuing. The budget (see {@link DefaultEngineLazyCreator#setBudget(long, long)}) covers all the steps.
+     * @param state the state, which is advanced in place
+     * @param generationCount maximum number of generations to evaluate
+     * @param loggerEnabled prints a summary of each generation (see {@link SummaryLogger})
+     * @return the last evaluated population, sorted from the best to the worst.
+     */
+    public RankedCandidate[] run(EvolutionState state, int generationCount, boolean loggerEnabled) {
 
+        lastState = state;
+        int pauseGeneration = (int) Math.min((long) state.generation + generationCount, Integer.MAX_VALUE);
+
+        List<EvolutionListener> runListeners = new ArrayList<EvolutionListener>(listeners);
+        if (loggerEnabled) {
+            runListeners.add(new SummaryLogger(fitnessFunction));
+        }
+        ListenerDispatcher dispatcher = new ListenerDispatcher(runListeners, LISTENER_QUEUE_CAPACITY,
+                LISTENER_CLOSE_TIMEOUT_MILLIS);
+
+        //the listener thread is stopped and its queued events are delivered, even if the run fails
+        try {
+            RankedCandidate[] result = evolve(state, pauseGeneration, dispatcher);
+            dispatcher.runFinished(state);
+            return result;
+        } finally {
+            dispatcher.close();
+            metrics.addDroppedListenerEvents(dispatcher.getDroppedEvents());
+            metrics.addFailedListenerCalls(dispatcher.getFailedCalls(), dispatcher.getLastFailure());
+        }
+    }
+
+    private RankedCandidate[] evolve(EvolutionState state, int pauseGeneration, ListenerDispatcher dispatcher) {
+        OffspringScheduler scheduler = state.scheduler;
+        Checkpointer checkpointer = checkpointFile == null ? null : new Checkpointer(checkpointFile, new TreeCodec(cfg));
+        RankedCandidate best = null;
 
         //iteration
-        do {
-            //fitness measure
-            rankedCandidates = RankedCandidate.rankAndSort(currentPopulation, fitnessFunction);
-
-            //printing the current ranked population
-            if (loggerEnabled) {
-                for (RankedCandidate candidate : rankedCandidates) {
-                    System.out.println(candidate.getFitness() + "::: " + candidate.getNode().getTreeNotation());
+        while (!state.finished && state.generation <= generations && state.generation < pauseGeneration) {
+            List<Node> currentPopulation = state.population;
+            List<Double> knownFitness = state.knownFitness;
+            int currentGen = state.generation;
+
+            dispatcher.generationStarted(currentGen);
+            Tracer tracer = Tracer.get();
+            Object trace = tracer != null ? tracer.beginGeneration() : null;
+            long generationStart = System.nanoTime();
+            long allocatedAtStart = EngineMetrics.currentThreadAllocatedBytes();
+
+            //the default initializer and operators draw from the generator of the engine. it is seeded from the
+            //generator of the state, which is checkpointed, so a resumed run goes on like the uninterrupted one
+            random.setSeed(state.random.nextLong());
+
+            //eg, moving to the next subset of the fitness cases
+            if (fitnessFunction instanceof GenerationAware) {
+                ((GenerationAware) fitnessFunction).nextGeneration(currentGen);
+            }
+
+            //simplification, smaller trees are cheaper to evaluate, copy and evolve
+            long phaseStart = System.nanoTime();
+            if (simplifier != null) {
+                currentPopulation = simplifier.simplifyAll(currentPopulation);
+            }
+            long simplificationNanos = System.nanoTime() - phaseStart;
+
+            //the elites of the previous generation join without being copied or evaluated again
+            for (RankedCandidate elite : state.elites) {
+                currentPopulation.add(elite.getNode());
+                knownFitness.add(elite.getFitness());
+            }
+
+            //fitness measure, the individuals with a known fitness are not evaluated again, unless the fitness
+            //changes between generations (eg, another sample of the fitness cases, where the carried values and the
+            //full fitness of the elites are not comparable with the fitness of the offspring)
+            phaseStart = System.nanoTime();
+            double[] known = toArray(knownFitness);
+            if (isFitnessChanging()) {
+                Arrays.fill(known, Double.NaN);
+            }
+            RankedCandidate[] rankedCandidates = duplicatePolicy == DuplicatePolicy.REUSE_FITNESS
+                    ? RankedCandidate.rankAndSortDistinct(currentPopulation, known, meteredFitness)
+                    : RankedCandidate.rankAndSort(currentPopulation, known, meteredFitness);
+            long sortingNanos = System.nanoTime() - phaseStart - meteredFitness.getLastNanos();
+            long carried = currentPopulation.size() - meteredFitness.getLastCount();
+            state.evaluations += meteredFitness.getLastCount();
+            ParallelFitness parallelFitness = FitnessWrapper.find(fitnessFunction, ParallelFitness.class);
+            double loadImbalance = parallelFitness != null && meteredFitness.getLastCount() > 0
+                    ? parallelFitness.getLastLoadImbalance() : Double.NaN;
+
+            //the best candidates are re-evaluated on the full data set before they are reported or kept
+            if (fitnessFunction instanceof GenerationAware) {
+                GenerationAware generationAware = (GenerationAware) fitnessFunction;
+                if (generationAware.getFullFitness() != null) {
+                    //metered, so they count in the metrics and in the evaluation budget
+                    rankedCandidates = RankedCandidate.rerank(rankedCandidates, generationAware.getEliteCount(),
+                            new MeteredFitness(generationAware.getFullFitness(), metrics));
+                    state.evaluations += Math.min(generationAware.getEliteCount(), rankedCandidates.length);
                 }
-                System.out.println("currentGen: " + currentGen);
-                System.out.println("No of individuals: " + rankedCandidates.length);
             }
 
+            long evaluationNanos = System.nanoTime() - phaseStart;
+
+            state.rankedCandidates = rankedCandidates;
+
+            if (best == null || rankedCandidates[0].compareTo(best) < 0) {
+                best = rankedCandidates[0];
+                dispatcher.bestImproved(currentGen, best);
+            }
+
+            double duplicateRate = currentGen > 0 && duplicatePolicy != DuplicatePolicy.NONE
+                    ? scheduler.getLastDuplicateRate() : 0;
+            double shrinkPercentage = simplifier != null ? simplifier.getLastShrinkPercentage() : 0;
+
             //termination check
             if (terminateOnReachingMaxFitness && rankedCandidates[0].getFitness() == 0.0) {
+                if (migrator != null) {
+                    migrator.announceTermination();
+                }
+                state.finished = true;
+            }
+
+            //another island reached the max fitness
+            if (migrator != null && migrator.isTerminated()) {
+                state.finished = true;
+            }
+
+            //the budget of the run is spent
+            long elapsedNanos = state.elapsedNanos + System.nanoTime() - generationStart;
+            if ((maxEvaluations > 0 && state.evaluations >= maxEvaluations)
+                    || (maxMillis > 0 && elapsedNanos >= maxMillis * 1000000)) {
+                state.finished = true;
+            }
+
+            if (state.finished) {
+                recordGeneration(state, currentGen, rankedCandidates, sortingNanos, 0, new long[operators.length],
+                        new long[operators.length], carried, generationStart, allocatedAtStart, tracer, trace);
+                dispatcher.generationFinished(new GenerationSummary(currentGen, rankedCandidates, duplicateRate,
+                        shrinkPercentage, simplificationNanos, evaluationNanos, 0, 0, loadImbalance));
                 break;
             }
 
+            //elitism
+            RankedCandidate[] elites = Arrays.copyOf(rankedCandidates, Math.min(eliteCount, rankedCandidates.length));
+
+            //migration, the immigrants take the place of some offspring
+            phaseStart = System.nanoTime();
+            List<Node> immigrants = new ArrayList<Node>();
+            if (migrator != null) {
+                migrator.emigrate(currentGen, rankedCandidates);
+                immigrants = migrator.immigrate(popSize - elites.length);
+            }
+            long migrationNanos = System.nanoTime() - phaseStart;
+
             //selection
-            Selector selector = new TournamentSelector(rankedCandidates);
+            phaseStart = System.nanoTime();
+            long[] operatorNanos = getOperatorNanos(state);
+            long[] operatorCalls = getOperatorCalls(state);
+            Selector selector = new TournamentSelector(rankedCandidates, state.random);
 
             //Genetic Operators
-            currentPopulation = applyGeneticOperators(selector);
+            Offspring[] offspring = scheduler.schedule(selector, popSize - elites.length - immigrants.size());
+            long breedingNanos = System.nanoTime() - phaseStart;
+
+            long[] operatorNanosAfter = getOperatorNanos(state);
+            long[] operatorCallsAfter = getOperatorCalls(state);
+            long selectionNanos = breedingNanos;
+            for (int i = 0; i < operatorNanos.length; i++) {
+                operatorNanos[i] = operatorNanosAfter[i] - operatorNanos[i];
+                operatorCalls[i] = operatorCallsAfter[i] - operatorCalls[i];
+                selectionNanos -= operatorNanos[i];
+            }
 
-            currentGen ++;
+            currentPopulation = new ArrayList<Node>(popSize);
+            knownFitness = new ArrayList<Double>(popSize);
+            for (Node immigrant : immigrants) {
+                currentPopulation.add(immigrant);
+                knownFitness.add(Double.NaN);
+            }
+            for (Offspring o : offspring) {
+                currentPopulation.add(o.getNode());
+                knownFitness.add(o.getCachedFitness());
+            }
+
+            state.population = currentPopulation;
+            state.knownFitness = knownFitness;
+            state.elites = elites;
+            state.generation = currentGen + 1;
+
+            recordGeneration(state, currentGen, rankedCandidates, sortingNanos, selectionNanos, operatorNanos,
+                    operatorCalls, carried, generationStart, allocatedAtStart, tracer, trace);
+            dispatcher.generationFinished(new GenerationSummary(currentGen, rankedCandidates, duplicateRate,
+                    shrinkPercentage, simplificationNanos, evaluationNanos, breedingNanos, migrationNanos,
+                    loadImbalance));
 
-        } while (currentGen <= generations);
+            if (checkpointer != null && state.generation % checkpointInterval == 0) {
+                checkpointer.submit(state);
+            }
+        }
 
-        System.out.println("Mutation: " + mut);
+        if (state.generation > generations) {
+            state.finished = true;
+        }
+
+        //resumed from a checkpoint of the last generation, the population is only ranked
+        if (state.rankedCandidates == null) {
+            List<Node> nodes = new ArrayList<Node>(state.population);
+            List<Double> knownFitness = new ArrayList<Double>(state.knownFitness);
+            for (RankedCandidate elite : state.elites) {
+                nodes.add(elite.getNode());
+                knownFitness.add(elite.getFitness());
+            }
+            state.rankedCandidates = RankedCandidate.rankAndSort(nodes, toArray(knownFitness), meteredFitness);
+            state.evaluations += meteredFitness.getLastCount();
+        }
 
-        return rankedCandidates;
+        if (checkpointer != null) {
+            checkpointer.finish();
+        }
 
+        return state.rankedCandidates;
     }
 
     /**
-     * Applies genetic operators with the given probabilities and creates a new generation of size popSize.
-     * @param selector the Selector which provides the nodes.
+     * @return the attempts, failures and time of each genetic operator, in the same order as the operators.
      */
-    private List<Node> applyGeneticOperators(Selector selector) {
-        List<Node> resultNodes = new ArrayList<Node>();
-
-        while (resultNodes.size() < popSize) {
+    public OperatorStatistics[] getOperatorStatistics() {
+        return lastState == null ? new OperatorStatistics[0] : lastState.getOperatorStatistics();
+    }
 
-            //getting 2 different nodes for evolve
-            List<Node> selectedNodes = new ArrayList<Node>();
-            selectedNodes.add(selector.next());
-            while (selectedNodes.size() != 2) {
-                Node newNode = selector.next();
-                if (newNode == selectedNodes.get(0)) continue;
+    /**
+     * @return the timing and throughput counters of all the runs of this engine
+     */
+    public EngineMetrics getMetrics() {
+        return metrics;
+    }
 
-                selectedNodes.add(newNode);
-            }
+    private void recordGeneration(EvolutionState state, int generation, RankedCandidate[] rankedCandidates,
+                                  long sortingNanos, long selectionNanos, long[] operatorNanos, long[] operatorCalls,
+                                  long carried, long generationStart, long allocatedAtStart, Tracer tracer,
+                                  Object trace) {
+        long nanos = System.nanoTime() - generationStart;
+        long allocated = allocatedAtStart < 0 ? -1 : EngineMetrics.currentThreadAllocatedBytes() - allocatedAtStart;
+        metrics.addGeneration(sortingNanos, selectionNanos, operatorNanos, operatorCalls, carried, nanos, allocated);
+        state.elapsedNanos += nanos;
+
+        if (trace != null) {
+            tracer.endGeneration(trace, generation, rankedCandidates.length, (int) (rankedCandidates.length - carried),
+                    rankedCandidates[0].getFitness(), rankedCandidates[0].getNode().getNodeCount());
+        }
+    }
 
-            //apply genetic operators based on the probabilities.
-            int p = random.nextInt(100);
-            for (int i = 0; i < this.probabilities.length; i++) {
+    private static long[] getOperatorNanos(EvolutionState state) {
+        OperatorStatistics[] statistics = state.getOperatorStatistics();
+        long[] nanos = new long[statistics.length];
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = statistics[i].getNanos();
+        }
+        return nanos;
+    }
 
-                if (p < probabilities[i]) {
-                    resultNodes.addAll(this.operators[i].evolve(selectedNodes));
-                    if (this.operators[i] instanceof GBM) {
-                        mut++;
-                    }
-                }
+    private static long[] getOperatorCalls(EvolutionState state) {
+        OperatorStatistics[] statistics = state.getOperatorStatistics();
+        long[] calls = new long[statistics.length];
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = statistics[i].getAttempts();
+        }
+        return calls;
+    }
 
-            }
+    /**
+     * @return true if the fitness of a tree changes between generations, see {@link GenerationAware}
+     */
+    private boolean isFitnessChanging() {
+        return fitnessFunction instanceof GenerationAware
+                && ((GenerationAware) fitnessFunction).getFullFitness() != null;
+    }
 
+    private static double[] toArray(List<Double> values) {
+        double[] result = new double[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
         }
-
-        return resultNodes;
+        return result;
     }
 
 
@@ -148,14 +455,27 @@ public class DefaultLazyEngine {
 
     public static class DefaultEngineLazyCreator {
         private final CFG cfg;
-        private final FitnessFunction fitnessFunction;
         private final int maxDepth;
         private final int popSize;
         private final int generations;
+        private final FitnessFunction fitnessFunction;
 
         private Initializer initializer;
         private GeneticOperator[] operators;
         private Integer[] probabilities;
+        private Simplifier simplifier;
+        private DuplicatePolicy duplicatePolicy;
+        private Migrator migrator;
+        private File checkpointFile;
+        private int checkpointInterval;
+        private long maxEvaluations;
+        private long maxMillis;
+        private List<EvolutionListener> listeners = new ArrayList<EvolutionListener>();
+        private String jmxName;
+        private final Random random = new Random();
+        private int sampleSize;
+        private int sampleEliteCount;
+        private int eliteCount;
         private boolean terminateOnReachingMaxFitness; //stop iteration.
 
 
@@ -166,15 +486,16 @@ public class DefaultLazyEngine {
             this.popSize = popSize;
             this.generations = generations;
 
-            this.initializer = new GBIM(cfg, maxDepth);
+            this.initializer = new GBIM(cfg, maxDepth, random);
             //default genetic operators::
             GeneticOperator reproduction = new DirectCopy();
-            GeneticOperator crossover = new GBC(cfg, maxDepth);
-            GeneticOperator mutation = new GBM(cfg, maxDepth);
+            GeneticOperator crossover = new GBC(cfg, maxDepth, random);
+            GeneticOperator mutation = new GBM(cfg, maxDepth, random);
 
             this.operators = new GeneticOperator[]{reproduction, crossover, mutation};
             this.probabilities = new Integer[]{5, 90, 2};
 
+            this.duplicatePolicy = DuplicatePolicy.NONE;
             this.terminateOnReachingMaxFitness = false;
         }
 
@@ -185,6 +506,7 @@ public class DefaultLazyEngine {
 
         /**
          * This will change the probabilities of the default genetic operators. <p/>
+         * Exactly one operator is applied for each offspring. The probabilities are relative to each other. <p/>
          * [NODE: do not call this method if you already specified your custom genetic operators.]
          * @param reproductionProbability probability value for default reproduction operation
          * @param crossoverProbability probability value for default crossover operation
@@ -202,7 +524,7 @@ public class DefaultLazyEngine {
         /**
          * This will replace default genetic operators.
          * @param geneticOperators
-         * @param probabilities
+         * @param probabilities relative probabilities of the operators
          * @return
          */
         public DefaultEngineLazyCreator setGeneticOperators(GeneticOperator[] geneticOperators,
@@ -224,9 +546,167 @@ public class DefaultLazyEngine {
             return this;
         }
 
+        /**
+         * Evaluates each generation only on a rotating random subset of the fitness cases.
+         * The best candidates of each generation are re-evaluated on the full data set. <p/>
+         * No fitness is carried over between generations then (see {@link Offspring}), since the values of two
+         * samples are not comparable, so the unchanged offspring and the elites are evaluated on each sample. <p/>
+         * [NOTE: the fitness function must be a {@link CaseFitnessFunction}.]
+         * @param sampleSize number of fitness cases evaluated in each generation.
+         * @param eliteCount number of best candidates re-evaluated on the full data set.
+         */
+        public DefaultEngineLazyCreator setFitnessSubsampling(int sampleSize, int eliteCount) {
+
+            if (!(fitnessFunction instanceof CaseFitnessFunction)) {
+                throw new RuntimeException("Subsampling requires a CaseFitnessFunction");
+            }
+
+            //the fitness function is wrapped in finish, so the samples follow the seed whatever the order of the calls
+            this.sampleSize = sampleSize;
+            this.sampleEliteCount = eliteCount;
+
+            return this;
+        }
+
+        /**
+         * Simplifies each individual before it is evaluated, using {@link MGPFj.terminal.operation.Operation#simplify}.
+         * @param simplification whether to simplify or not
+         */
+        public DefaultEngineLazyCreator setSimplification(boolean simplification) {
+            this.simplifier = simplification ? new Simplifier(cfg) : null;
+
+            return this;
+        }
+
+        /**
+         * Defines how the duplicated offspring of a generation are handled. The default is {@link DuplicatePolicy#NONE}.
+         * @param duplicatePolicy the policy
+         */
+        public DefaultEngineLazyCreator setDuplicateElimination(DuplicatePolicy duplicatePolicy) {
+            this.duplicatePolicy = duplicatePolicy;
+
+            return this;
+        }
+
+        /**
+         * The best eliteCount candidates of each generation pass straight to the next generation,
+         * without being copied or evaluated again. So the best fitness never gets worse. The default is 0. <p/>
+         * [NOTE: with subsampling, the elites are evaluated again on each sample, like the unchanged offspring.]
+         * @param eliteCount number of elites
+         */
+        public DefaultEngineLazyCreator setEliteCount(int eliteCount) {
+
+            if (eliteCount < 0 || eliteCount >= popSize) {
+                throw new RuntimeException("Elite count must be between 0 and popSize - 1");
+            }
+
+            this.eliteCount = eliteCount;
+
+            return this;
+        }
+
+        /**
+         * Makes this engine an island, which exchanges candidates with other islands through the migrator.
+         * The run also stops when another island announces the termination. <p/>
+         * [NOTE: the migrator must be started before the run, eg, {@link MGPFj.distributed.SocketMigrator#start()}.]
+         * @param migrator the migrator
+         */
+        public DefaultEngineLazyCreator setMigrator(Migrator migrator) {
+            this.migrator = migrator;
+
+            return this;
+        }
+
+        /**
+         * Writes a checkpoint every few generations, on a background thread. A run can be continued from the
+         * last checkpoint with {@link DefaultLazyEngine#resume(File, boolean)}.
+         * @param checkpointFile the checkpoint file. It is replaced by each new checkpoint.
+         * @param interval number of generations between two checkpoints
+         */
+        public DefaultEngineLazyCreator setCheckpointing(File checkpointFile, int interval) {
+
+            if (interval <= 0) {
+                throw new RuntimeException("Checkpoint interval must be positive");
+            }
+
+            this.checkpointFile = checkpointFile;
+            this.checkpointInterval = interval;
+
+            return this;
+        }
+
+        /**
+         * Stops the run at the end of the generation in which one of the budgets is spent. The evaluations are
+         * counted as in {@link EngineMetrics#getEvaluations()}, so the individuals with a known fitness are free.
+         * A run which is paused and continued (see {@link DefaultLazyEngine#run(EvolutionState, int, boolean)})
+         * keeps counting from where it paused.
+         * @param maxEvaluations maximum number of evaluations of a run, or 0 for no limit
+         * @param maxMillis maximum wall time of a run, in milliseconds, or 0 for no limit
+         */
+        public DefaultEngineLazyCreator setBudget(long maxEvaluations, long maxMillis) {
+
+            if (maxEvaluations < 0 || maxMillis < 0) {
+                throw new RuntimeException("Budget must not be negative");
+            }
+
+            this.maxEvaluations = maxEvaluations;
+            this.maxMillis = maxMillis;
+
+            return this;
+        }
+
+        /**
+         * The listener is called on a background thread, see {@link EvolutionListener}.
+         * @param listener the listener
+         */
+        public DefaultEngineLazyCreator addListener(EvolutionListener listener) {
+            this.listeners.add(listener);
+
+            return this;
+        }
+
+        /**
+         * Makes the runs of the engine reproducible. The default initializer and genetic operators, the subsampling,
+         * the selection and the choice of the operators all draw from one random generator seeded with seed. So
+         * the same seed, settings and (deterministic) fitness function give the same runs, in the same order. <p/>
+         * [NOTE: custom initializers and genetic operators are not seeded by this, and a time budget (see
+         * {@link #setBudget(long, long)}) or a migrator make the runs depend on timing.]
+         * @param seed the seed
+         */
+        public DefaultEngineLazyCreator setSeed(long seed) {
+            this.random.setSeed(seed);
+
+            return this;
+        }
+
+        /**
+         * Registers the metrics of the engine (see {@link DefaultLazyEngine#getMetrics()}) in the platform MBean
+         * server, as MGPFj:type=EngineMetrics,name=[jmxName]. The metrics are collected even if they are not
+         * registered.
+         * @param jmxName the name of the engine, unique in the JVM
+         */
+        public DefaultEngineLazyCreator setJmxName(String jmxName) {
+            this.jmxName = jmxName;
+
+            return this;
+        }
+
         public DefaultLazyEngine finish() {
-            return new DefaultLazyEngine(cfg, initializer, fitnessFunction, operators,
-                    probabilities, terminateOnReachingMaxFitness, maxDepth, popSize, generations);
+            FitnessFunction fitnessFunction = sampleSize > 0
+                    ? new SubsampledFitness((CaseFitnessFunction) this.fitnessFunction, sampleSize, sampleEliteCount,
+                            random)
+                    : this.fitnessFunction;
+
+            DefaultLazyEngine engine = new DefaultLazyEngine(cfg, initializer, fitnessFunction, operators,
+                    probabilities, simplifier, duplicatePolicy, migrator, checkpointFile, checkpointInterval,
+                    maxEvaluations, maxMillis, new ArrayList<EvolutionListener>(listeners), random,
+                    terminateOnReachingMaxFitness, maxDepth, popSize, eliteCount, generations);
+
+            if (jmxName != null) {
+                engine.getMetrics().register(jmxName);
+            }
+
+            return engine;
         }
     }
 
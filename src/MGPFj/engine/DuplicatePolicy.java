@@ -0,0 +1,28 @@
+package MGPFj.engine;
+
+/**
+ * Defines what the engine does with the offspring which are identical to an already created offspring
+ * of the same generation. Two offspring are identical if they have the same structural hash and are
+ * structurally equal, so a hash collision is never taken for a duplicate. <p/>
+ * [NOTE: an offspring identical to one of its parents always takes the fitness of the parent,
+ * see {@link MGPFj.chromosome.Offspring}.]
+ */
+public enum DuplicatePolicy {
+
+    /**
+     * Duplicates are kept and evaluated like any other offspring.
+     */
+    NONE,
+
+    /**
+     * Duplicates are thrown away and the genetic operators are applied again,
+     * as long as the budget of extra attempts of the generation allows.
+     */
+    REGENERATE,
+
+    /**
+     * Duplicates are kept, but each distinct genome of a generation is evaluated once. The duplicates take
+     * the known fitness of an identical candidate (eg, an elite), or share the evaluation of their twin.
+     */
+    REUSE_FITNESS
+}
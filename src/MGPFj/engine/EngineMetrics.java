@@ -0,0 +1,311 @@
+package MGPFj.engine;
+
+import MGPFj.fitness.FitnessFunction;
+import MGPFj.fitness.FitnessWrapper;
+import MGPFj.fitness.PersistentFitnessCache;
+import MGPFj.genetic_operators.GeneticOperator;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts where the time of the runs of an engine goes, and how fast the population is evaluated. <p/>
+ * The counters are striped {@link LongAdder}s, so they are cheap enough to stay on in production, and they can be
+ * read at any time from other threads, through {@link #snapshot()} or JMX (see {@link #register(String)}). <p/>
+ * The allocated bytes are measured on the engine thread only (with com.sun.management.ThreadMXBean, if the JVM
+ * supports it), so the allocations of other threads (eg, of a {@link MGPFj.fitness.ParallelFitness}) are not counted.
+ */
+public class EngineMetrics implements EngineMetricsMBean {
+
+    private final GeneticOperator[] operators;
+    private final PersistentFitnessCache cache;
+
+    private final LongAdder generations = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder evaluatedNodes = new LongAdder();
+    private final LongAdder carriedFitness = new LongAdder();
+    private final LongAdder generationNanos = new LongAdder();
+    private final LongAdder initializationNanos = new LongAdder();
+    private final LongAdder evaluationNanos = new LongAdder();
+    private final LongAdder sortingNanos = new LongAdder();
+    private final LongAdder selectionNanos = new LongAdder();
+    private final LongAdder[] operatorNanos;
+    private final LongAdder[] operatorCalls;
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder droppedListenerEvents = new LongAdder();
+    private final LongAdder failedListenerCalls = new LongAdder();
+    private volatile long lastGenerationAllocatedBytes;
+    private volatile String lastListenerFailure;
+
+    private ObjectName objectName;
+
+    EngineMetrics(GeneticOperator[] operators, FitnessFunction fitnessFunction) {
+        this.operators = operators;
+        //the cache may be wrapped (eg, by a ParallelFitness)
+        this.cache = FitnessWrapper.find(fitnessFunction, PersistentFitnessCache.class);
+        this.operatorNanos = new LongAdder[operators.length];
+        this.operatorCalls = new LongAdder[operators.length];
+        for (int i = 0; i < operators.length; i++) {
+            operatorNanos[i] = new LongAdder();
+            operatorCalls[i] = new LongAdder();
+        }
+    }
+
+    void addInitialization(long nanos) {
+        initializationNanos.add(nanos);
+    }
+
+    void addEvaluation(int count, long nodes, long nanos) {
+        evaluations.add(count);
+        evaluatedNodes.add(nodes);
+        evaluationNanos.add(nanos);
+    }
+
+    /**
+     * @param sortingNanos the ranking time, without the evaluation
+     * @param selectionNanos the breeding time, without the genetic operators
+     * @param operatorNanos the time of each genetic operator in the generation
+     * @param operatorCalls the number of calls to each genetic operator in the generation
+     * @param carried number of individuals whose fitness was known without evaluating them
+     * @param nanos the wall time of the generation
+     * @param allocated the bytes allocated by the engine thread in the generation, or -1 if unknown
+     */
+    void addGeneration(long sortingNanos, long selectionNanos, long[] operatorNanos, long[] operatorCalls,
+                       long carried, long nanos, long allocated) {
+        generations.increment();
+        this.sortingNanos.add(sortingNanos);
+        this.selectionNanos.add(selectionNanos);
+        for (int i = 0; i < operatorNanos.length; i++) {
+            this.operatorNanos[i].add(operatorNanos[i]);
+            this.operatorCalls[i].add(operatorCalls[i]);
+        }
+        carriedFitness.add(carried);
+        generationNanos.add(nanos);
+
+        if (allocated >= 0) {
+            allocatedBytes.add(allocated);
+            lastGenerationAllocatedBytes = allocated;
+        }
+    }
+
+    void addDroppedListenerEvents(long count) {
+        droppedListenerEvents.add(count);
+    }
+
+    /**
+     * @param count number of listener calls which threw
+     * @param lastFailure the last exception thrown by a listener, or null if none threw
+     */
+    void addFailedListenerCalls(long count, Throwable lastFailure) {
+        failedListenerCalls.add(count);
+        if (lastFailure != null) {
+            lastListenerFailure = lastFailure.toString();
+        }
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread, or -1 if the JVM cannot measure it
+     */
+    static long currentThreadAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server, as MGPFj:type=EngineMetrics,name=[name].
+     * @param name the name of the engine
+     */
+    public synchronized void register(String name) {
+        try {
+            objectName = new ObjectName("MGPFj:type=EngineMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (Exception e) {
+            throw new RuntimeException("Cannot register the metrics as " + name, e);
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, if they were registered.
+     */
+    public synchronized void unregister() {
+        if (objectName == null) return;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            //already removed
+        }
+        objectName = null;
+    }
+
+    /**
+     * @return a copy of all the counters at this moment
+     */
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(getGenerations(), getEvaluations(), getEvaluatedNodes(),
+                getEvaluationsPerSecond(), getNodesPerSecond(), getInitializationMillis(), getEvaluationMillis(),
+                getSortingMillis(), getSelectionMillis(), operators, getMillisPerOperator(), getCallsPerOperator(),
+                getAllocatedBytes(), getLastGenerationAllocatedBytes(), getCarriedFitnessRate(), getCacheHitRate());
+    }
+
+    @Override
+    public long getGenerations() {
+        return generations.sum();
+    }
+
+    @Override
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    @Override
+    public long getEvaluatedNodes() {
+        return evaluatedNodes.sum();
+    }
+
+    /**
+     * @return evaluations per second of the generation loop
+     */
+    @Override
+    public double getEvaluationsPerSecond() {
+        long nanos = generationNanos.sum();
+        return nanos == 0 ? 0 : evaluations.sum() * 1e9 / nanos;
+    }
+
+    /**
+     * @return evaluated nodes per second of evaluation
+     */
+    @Override
+    public double getNodesPerSecond() {
+        long nanos = evaluationNanos.sum();
+        return nanos == 0 ? 0 : evaluatedNodes.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public long getInitializationMillis() {
+        return initializationNanos.sum() / 1000000;
+    }
+
+    @Override
+    public long getEvaluationMillis() {
+        return evaluationNanos.sum() / 1000000;
+    }
+
+    @Override
+    public long getSortingMillis() {
+        return sortingNanos.sum() / 1000000;
+    }
+
+    @Override
+    public long getSelectionMillis() {
+        return selectionNanos.sum() / 1000000;
+    }
+
+    /**
+     * @return the time of all the genetic operators
+     */
+    @Override
+    public long getOperatorMillis() {
+        long nanos = 0;
+        for (LongAdder adder : operatorNanos) {
+            nanos += adder.sum();
+        }
+        return nanos / 1000000;
+    }
+
+    /**
+     * @return the simple class name of each genetic operator, in the same order as the operators of the engine
+     */
+    @Override
+    public String[] getOperatorNames() {
+        String[] names = new String[operators.length];
+        for (int i = 0; i < operators.length; i++) {
+            names[i] = operators[i].getClass().getSimpleName();
+        }
+        return names;
+    }
+
+    /**
+     * @return the time of each genetic operator, in the same order as {@link #getOperatorNames()}
+     */
+    @Override
+    public long[] getMillisPerOperator() {
+        long[] millis = new long[operators.length];
+        for (int i = 0; i < operators.length; i++) {
+            millis[i] = operatorNanos[i].sum() / 1000000;
+        }
+        return millis;
+    }
+
+    /**
+     * @return the number of calls to each genetic operator, in the same order as {@link #getOperatorNames()}
+     */
+    @Override
+    public long[] getCallsPerOperator() {
+        long[] calls = new long[operators.length];
+        for (int i = 0; i < operators.length; i++) {
+            calls[i] = operatorCalls[i].sum();
+        }
+        return calls;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    @Override
+    public long getLastGenerationAllocatedBytes() {
+        return lastGenerationAllocatedBytes;
+    }
+
+    /**
+     * @return percentage of the individuals whose fitness was known (elites and copies of their parents)
+     */
+    @Override
+    public double getCarriedFitnessRate() {
+        long carried = carriedFitness.sum();
+        long total = carried + evaluations.sum();
+        return total == 0 ? 0 : 100.0 * carried / total;
+    }
+
+    /**
+     * @return the hit rate of the {@link PersistentFitnessCache}, or NaN if the fitness function is not one and
+     * does not wrap one
+     */
+    @Override
+    public double getCacheHitRate() {
+        return cache == null ? Double.NaN : cache.getHitRate();
+    }
+
+    @Override
+    public long getDroppedListenerEvents() {
+        return droppedListenerEvents.sum();
+    }
+
+    /**
+     * @return number of calls to the {@link EvolutionListener}s which threw
+     */
+    @Override
+    public long getFailedListenerCalls() {
+        return failedListenerCalls.sum();
+    }
+
+    /**
+     * @return the last exception thrown by an {@link EvolutionListener}, or null if none threw
+     */
+    @Override
+    public String getLastListenerFailure() {
+        return lastListenerFailure;
+    }
+}
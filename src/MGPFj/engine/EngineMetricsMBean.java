@@ -0,0 +1,47 @@
+package MGPFj.engine;
+
+/**
+ * The JMX view of {@link EngineMetrics}. The times are in milliseconds, summed since the engine was created.
+ */
+public interface EngineMetricsMBean {
+
+    long getGenerations();
+
+    long getEvaluations();
+
+    long getEvaluatedNodes();
+
+    double getEvaluationsPerSecond();
+
+    double getNodesPerSecond();
+
+    long getInitializationMillis();
+
+    long getEvaluationMillis();
+
+    long getSortingMillis();
+
+    long getSelectionMillis();
+
+    long getOperatorMillis();
+
+    String[] getOperatorNames();
+
+    long[] getMillisPerOperator();
+
+    long[] getCallsPerOperator();
+
+    long getAllocatedBytes();
+
+    long getLastGenerationAllocatedBytes();
+
+    double getCarriedFitnessRate();
+
+    double getCacheHitRate();
+
+    long getDroppedListenerEvents();
+
+    long getFailedListenerCalls();
+
+    String getLastListenerFailure();
+}
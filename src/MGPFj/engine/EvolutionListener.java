@@ -0,0 +1,40 @@
+package MGPFj.engine;
+
+import MGPFj.chromosome.RankedCandidate;
+
+/**
+ * Observes a {@link DefaultLazyEngine} run, or the improvements of a {@link SteadyStateEngine} or
+ * {@link AsynchronousEngine} run. <p/>
+ * The methods are called on a background thread, in the order of the events, through a bounded queue.
+ * If a listener is too slow and the queue fills up, the newest events are dropped, so a listener never
+ * stalls the engine. The exceptions thrown by a listener are counted in the {@link EngineMetrics} of a
+ * {@link DefaultLazyEngine}, and do not stop the other listeners. All the methods do nothing by default.
+ */
+public interface EvolutionListener {
+
+    /**
+     * @param generation the generation which is about to be evaluated
+     */
+    default void generationStarted(int generation) {
+    }
+
+    /**
+     * @param summary the statistics and timings of the generation
+     */
+    default void generationFinished(GenerationSummary summary) {
+    }
+
+    /**
+     * Called when a generation has a better candidate than all the previous ones.
+     * @param generation the generation
+     * @param best the new best candidate
+     */
+    default void bestImproved(int generation, RankedCandidate best) {
+    }
+
+    /**
+     * @param state the state at the end of the run
+     */
+    default void runFinished(EvolutionState state) {
+    }
+}
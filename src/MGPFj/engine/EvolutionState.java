@@ -0,0 +1,122 @@
+package MGPFj.engine;
+
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.RankedCandidate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Everything a {@link DefaultLazyEngine} run needs to continue: the population of the next generation,
+ * the fitness which is already known, the elites, the generation counter, and the random generator and
+ * statistics of the genetic operators. <p/>
+ * A state is created by {@link DefaultLazyEngine#createState()} or read from a checkpoint, and advanced by
+ * {@link DefaultLazyEngine#run(EvolutionState, boolean)}.
+ */
+public class EvolutionState {
+
+    List<Node> population;
+    List<Double> knownFitness;
+    RankedCandidate[] elites;
+    RankedCandidate[] rankedCandidates;
+    int generation;
+    boolean finished;
+    long evaluations;
+    long elapsedNanos;
+
+    final Random random;
+    final OffspringScheduler scheduler;
+
+    EvolutionState(List<Node> population, List<Double> knownFitness, RankedCandidate[] elites, int generation,
+                   Random random, OffspringScheduler scheduler) {
+        this.population = population;
+        this.knownFitness = knownFitness;
+        this.elites = elites;
+        this.generation = generation;
+        this.random = random;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @return the generation which is evaluated next
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return the last evaluated population, sorted from the best to the worst, or null if no generation
+     * was evaluated yet (eg, right after resuming from a checkpoint).
+     */
+    public RankedCandidate[] getRankedCandidates() {
+        return rankedCandidates;
+    }
+
+    /**
+     * @return true if the run reached the last generation or the max fitness
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return number of individuals evaluated by the run so far, in all its steps
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * @return time spent in the generations of the run so far, in all its steps, in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1000000;
+    }
+
+    /**
+     * @return the attempts, failures and time of each genetic operator, since the start of the run.
+     */
+    public OperatorStatistics[] getOperatorStatistics() {
+        return scheduler.getStatistics();
+    }
+
+    /**
+     * Copies the parts of the state which change from one generation to the next.
+     * The nodes are shared, since they are never modified once they are in a population.
+     */
+    Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot();
+        snapshot.population = new ArrayList<Node>(population);
+        snapshot.knownFitness = new ArrayList<Double>(knownFitness);
+        snapshot.elites = elites.clone();
+        snapshot.generation = generation;
+        snapshot.evaluations = evaluations;
+        snapshot.elapsedNanos = elapsedNanos;
+        snapshot.random = Checkpointer.serializeRandom(random);
+        snapshot.fallbacks = scheduler.getFallbacks();
+        snapshot.duplicateRate = scheduler.getLastDuplicateRate();
+
+        OperatorStatistics[] statistics = scheduler.getStatistics();
+        snapshot.statistics = new long[statistics.length][];
+        for (int i = 0; i < statistics.length; i++) {
+            snapshot.statistics[i] = new long[]{statistics[i].getAttempts(), statistics[i].getFailures(),
+                    statistics[i].getOffspring(), statistics[i].getNanos()};
+        }
+
+        return snapshot;
+    }
+
+    static class Snapshot {
+        List<Node> population;
+        List<Double> knownFitness;
+        RankedCandidate[] elites;
+        int generation;
+        long evaluations;
+        long elapsedNanos;
+        byte[] random;
+        long fallbacks;
+        double duplicateRate;
+        long[][] statistics;
+    }
+}
@@ -0,0 +1,139 @@
+package MGPFj.engine;
+
+import MGPFj.chromosome.RankedCandidate;
+
+/**
+ * The statistics and phase timings of one generation, sent to the {@link EvolutionListener}s.
+ */
+public class GenerationSummary {
+
+    private final int generation;
+    private final int populationSize;
+    private final RankedCandidate[] rankedCandidates;
+    private final double duplicateRate;
+    private final double shrinkPercentage;
+    private final long simplificationNanos;
+    private final long evaluationNanos;
+    private final long breedingNanos;
+    private final long migrationNanos;
+    private final double loadImbalance;
+
+    GenerationSummary(int generation, RankedCandidate[] rankedCandidates, double duplicateRate,
+                      double shrinkPercentage, long simplificationNanos, long evaluationNanos, long breedingNanos,
+                      long migrationNanos, double loadImbalance) {
+        this.generation = generation;
+        this.populationSize = rankedCandidates.length;
+        this.rankedCandidates = rankedCandidates;
+        this.duplicateRate = duplicateRate;
+        this.shrinkPercentage = shrinkPercentage;
+        this.simplificationNanos = simplificationNanos;
+        this.evaluationNanos = evaluationNanos;
+        this.breedingNanos = breedingNanos;
+        this.migrationNanos = migrationNanos;
+        this.loadImbalance = loadImbalance;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public int getPopulationSize() {
+        return populationSize;
+    }
+
+    /**
+     * @return the best candidate of the generation
+     */
+    public RankedCandidate getBest() {
+        return rankedCandidates[0];
+    }
+
+    /**
+     * The mean is computed when it is asked for, on the listener thread, so the engine does not pay for it.
+     * @return the mean of the finite fitness values. The infinite or NaN values (eg, a division by zero) are left out.
+     */
+    public double getMeanFitness() {
+        double sum = 0;
+        int finite = 0;
+
+        for (RankedCandidate candidate : rankedCandidates) {
+            if (!Double.isNaN(candidate.getFitness()) && !Double.isInfinite(candidate.getFitness())) {
+                sum += candidate.getFitness();
+                finite++;
+            }
+        }
+
+        return finite == 0 ? Double.NaN : sum / finite;
+    }
+
+    /**
+     * @return the mean number of nodes of the trees
+     */
+    public double getMeanNodeCount() {
+        long nodes = 0;
+
+        for (RankedCandidate candidate : rankedCandidates) {
+            nodes += candidate.getNode().getNodeCount();
+        }
+
+        return (double) nodes / rankedCandidates.length;
+    }
+
+    /**
+     * @return percentage of the duplicated offspring which created this generation
+     */
+    public double getDuplicateRate() {
+        return duplicateRate;
+    }
+
+    /**
+     * @return percentage of the nodes removed by the simplification, or 0 if it is not enabled
+     */
+    public double getShrinkPercentage() {
+        return shrinkPercentage;
+    }
+
+    /**
+     * @return time spent simplifying the population, in nanoseconds
+     */
+    public long getSimplificationNanos() {
+        return simplificationNanos;
+    }
+
+    /**
+     * @return time spent evaluating and sorting the population, in nanoseconds
+     */
+    public long getEvaluationNanos() {
+        return evaluationNanos;
+    }
+
+    /**
+     * @return time spent selecting the parents and applying the genetic operators, in nanoseconds
+     */
+    public long getBreedingNanos() {
+        return breedingNanos;
+    }
+
+    /**
+     * @return time spent exchanging candidates with the other islands, in nanoseconds
+     */
+    public long getMigrationNanos() {
+        return migrationNanos;
+    }
+
+    /**
+     * @return the load imbalance of the workers of a {@link MGPFj.fitness.ParallelFitness} in the evaluation of this
+     * generation (see {@link MGPFj.fitness.ParallelFitness#getLastLoadImbalance()}), or NaN if the population was not
+     * evaluated by one
+     */
+    public double getLoadImbalance() {
+        return loadImbalance;
+    }
+
+    @Override
+    public String toString() {
+        return "gen " + generation + ": best: " + getBest().getFitness() + ", mean: " + getMeanFitness()
+                + ", mean size: " + getMeanNodeCount() + ", individuals: " + populationSize
+                + ", evaluation: " + evaluationNanos / 1000000 + "ms, breeding: " + breedingNanos / 1000000 + "ms";
+    }
+}
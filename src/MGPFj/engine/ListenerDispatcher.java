@@ -0,0 +1,204 @@
+package MGPFj.engine;
+
+import MGPFj.chromosome.RankedCandidate;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calls the listeners of a run on a background thread, through a bounded queue. <p/>
+ * The engine never waits for the events of a generation: if the queue is full, the event is dropped and counted.
+ * At the end of the run, it waits at most closeTimeoutMillis for the listeners, so a stuck listener never stalls
+ * it. A listener which throws is counted, and does not stop the others. <p/>
+ * Without listeners, no thread is started.
+ */
+class ListenerDispatcher {
+
+    private static final Event STOP = new Event() {
+        @Override
+        void deliver(EvolutionListener listener) {
+        }
+    };
+
+    private final List<EvolutionListener> listeners;
+    private final BlockingQueue<Event> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final long closeTimeoutNanos;
+    private final Thread thread;
+    private volatile Throwable lastFailure;
+
+    /**
+     * @param listeners the listeners
+     * @param capacity the size of the queue
+     * @param closeTimeoutMillis how long the end of the run waits for the listeners
+     */
+    ListenerDispatcher(List<EvolutionListener> listeners, int capacity, long closeTimeoutMillis) {
+        this.listeners = listeners;
+        this.queue = new ArrayBlockingQueue<Event>(capacity);
+        this.closeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(closeTimeoutMillis);
+
+        if (listeners.isEmpty()) {
+            this.thread = null;
+            return;
+        }
+
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dispatch();
+            }
+        }, "evolution-listeners");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void generationStarted(final int generation) {
+        offer(new Event() {
+            @Override
+            void deliver(EvolutionListener listener) {
+                listener.generationStarted(generation);
+            }
+        });
+    }
+
+    void generationFinished(final GenerationSummary summary) {
+        offer(new Event() {
+            @Override
+            void deliver(EvolutionListener listener) {
+                listener.generationFinished(summary);
+            }
+        });
+    }
+
+    void bestImproved(final int generation, final RankedCandidate best) {
+        offer(new Event() {
+            @Override
+            void deliver(EvolutionListener listener) {
+                listener.bestImproved(generation, best);
+            }
+        });
+    }
+
+    /**
+     * Sends the last event of a run which was not interrupted by an exception. It waits for room in the queue,
+     * and is dropped only if the listeners do not make room within the close timeout.
+     */
+    void runFinished(final EvolutionState state) {
+        if (thread == null) {
+            return;
+        }
+
+        boolean queued = put(new Event() {
+            @Override
+            void deliver(EvolutionListener listener) {
+                listener.runFinished(state);
+            }
+        }, System.nanoTime() + closeTimeoutNanos);
+
+        if (!queued) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Waits until the queued events are delivered, and stops the thread. It gives up after the close timeout,
+     * and the events which are still queued are then delivered in the background.
+     */
+    void close() {
+        if (thread == null) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + closeTimeoutNanos;
+        if (put(STOP, deadline)) {
+            try {
+                thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return the number of events dropped because the queue was full
+     */
+    long getDroppedEvents() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the number of listener calls which threw
+     */
+    long getFailedCalls() {
+        return failures.get();
+    }
+
+    /**
+     * @return the last exception thrown by a listener, or null if none threw
+     */
+    Throwable getLastFailure() {
+        return lastFailure;
+    }
+
+    private void offer(Event event) {
+        if (thread != null && !queue.offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Waits for room in the queue until the deadline, or until the thread is gone.
+     * @return false if the event is not queued
+     */
+    private boolean put(Event event, long deadline) {
+        try {
+            while (thread.isAlive()) {
+                if (queue.offer(event, 10, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private void dispatch() {
+        while (true) {
+            Event event;
+            try {
+                event = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (event == STOP) {
+                return;
+            }
+
+            for (EvolutionListener listener : listeners) {
+                try {
+                    event.deliver(listener);
+                } catch (Throwable e) {
+                    //a failing listener (even with an Error) does not stop the others, nor the thread
+                    failures.incrementAndGet();
+                    lastFailure = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * An event, delivered to each listener separately.
+     */
+    private abstract static class Event {
+        abstract void deliver(EvolutionListener listener);
+    }
+}
@@ -0,0 +1,81 @@
+package MGPFj.engine;
+
+import MGPFj.chromosome.Node;
+import MGPFj.fitness.FitnessFunction;
+import MGPFj.fitness.FitnessWrapper;
+import MGPFj.utils.Tracer;
+
+import java.util.List;
+
+/**
+ * Wraps the fitness function of an engine, and records the evaluations in its {@link EngineMetrics}.
+ */
+class MeteredFitness implements FitnessWrapper {
+
+    private final FitnessFunction fitnessFunction;
+    private final EngineMetrics metrics;
+
+    private int lastCount;
+    private long lastNanos;
+
+    MeteredFitness(FitnessFunction fitnessFunction, EngineMetrics metrics) {
+        this.fitnessFunction = fitnessFunction;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public double evaluate(Node node) {
+        long start = System.nanoTime();
+        double fitness = fitnessFunction.evaluate(node);
+        long nanos = System.nanoTime() - start;
+
+        lastCount = 1;
+        lastNanos = nanos;
+        metrics.addEvaluation(1, node.getNodeCount(), nanos);
+
+        return fitness;
+    }
+
+    @Override
+    public void evaluateAll(List<Node> nodes, double[] out) {
+        Tracer tracer = Tracer.get();
+        Object trace = tracer != null ? tracer.beginEvaluation() : null;
+
+        long start = System.nanoTime();
+        fitnessFunction.evaluateAll(nodes, out);
+        long nanos = System.nanoTime() - start;
+
+        //counting the nodes walks the trees, so it is kept out of the evaluation time
+        long nodeCount = 0;
+        for (Node node : nodes) {
+            nodeCount += node.getNodeCount();
+        }
+
+        lastCount = nodes.size();
+        lastNanos = nanos;
+        metrics.addEvaluation(nodes.size(), nodeCount, nanos);
+
+        if (trace != null) {
+            tracer.endEvaluation(trace, nodes.size(), nodeCount);
+        }
+    }
+
+    @Override
+    public FitnessFunction getDelegate() {
+        return fitnessFunction;
+    }
+
+    /**
+     * @return number of trees evaluated by the last call
+     */
+    int getLastCount() {
+        return lastCount;
+    }
+
+    /**
+     * @return time of the last call, in nanoseconds
+     */
+    long getLastNanos() {
+        return lastNanos;
+    }
+}
@@ -0,0 +1,148 @@
+package MGPFj.engine;
+
+import MGPFj.genetic_operators.GeneticOperator;
+
+/**
+ * The values of {@link EngineMetrics} at one moment. The times are in milliseconds.
+ */
+public class MetricsSnapshot {
+
+    private final long generations;
+    private final long evaluations;
+    private final long evaluatedNodes;
+    private final double evaluationsPerSecond;
+    private final double nodesPerSecond;
+    private final long initializationMillis;
+    private final long evaluationMillis;
+    private final long sortingMillis;
+    private final long selectionMillis;
+    private final GeneticOperator[] operators;
+    private final long[] operatorMillis;
+    private final long[] operatorCalls;
+    private final long allocatedBytes;
+    private final long lastGenerationAllocatedBytes;
+    private final double carriedFitnessRate;
+    private final double cacheHitRate;
+
+    MetricsSnapshot(long generations, long evaluations, long evaluatedNodes, double evaluationsPerSecond,
+                    double nodesPerSecond, long initializationMillis, long evaluationMillis, long sortingMillis,
+                    long selectionMillis, GeneticOperator[] operators, long[] operatorMillis, long[] operatorCalls,
+                    long allocatedBytes, long lastGenerationAllocatedBytes, double carriedFitnessRate,
+                    double cacheHitRate) {
+        this.generations = generations;
+        this.evaluations = evaluations;
+        this.evaluatedNodes = evaluatedNodes;
+        this.evaluationsPerSecond = evaluationsPerSecond;
+        this.nodesPerSecond = nodesPerSecond;
+        this.initializationMillis = initializationMillis;
+        this.evaluationMillis = evaluationMillis;
+        this.sortingMillis = sortingMillis;
+        this.selectionMillis = selectionMillis;
+        this.operators = operators;
+        this.operatorMillis = operatorMillis;
+        this.operatorCalls = operatorCalls;
+        this.allocatedBytes = allocatedBytes;
+        this.lastGenerationAllocatedBytes = lastGenerationAllocatedBytes;
+        this.carriedFitnessRate = carriedFitnessRate;
+        this.cacheHitRate = cacheHitRate;
+    }
+
+    public long getGenerations() {
+        return generations;
+    }
+
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    public long getEvaluatedNodes() {
+        return evaluatedNodes;
+    }
+
+    public double getEvaluationsPerSecond() {
+        return evaluationsPerSecond;
+    }
+
+    public double getNodesPerSecond() {
+        return nodesPerSecond;
+    }
+
+    public long getInitializationMillis() {
+        return initializationMillis;
+    }
+
+    public long getEvaluationMillis() {
+        return evaluationMillis;
+    }
+
+    public long getSortingMillis() {
+        return sortingMillis;
+    }
+
+    public long getSelectionMillis() {
+        return selectionMillis;
+    }
+
+    /**
+     * @param i index of the operator, in the same order as the operators of the engine
+     * @return the time of the operator
+     */
+    public long getOperatorMillis(int i) {
+        return operatorMillis[i];
+    }
+
+    /**
+     * @param i index of the operator, in the same order as the operators of the engine
+     * @return the number of calls to the operator
+     */
+    public long getOperatorCalls(int i) {
+        return operatorCalls[i];
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return the bytes allocated by the engine thread in the last generation, or 0 if unknown
+     */
+    public long getLastGenerationAllocatedBytes() {
+        return lastGenerationAllocatedBytes;
+    }
+
+    public double getCarriedFitnessRate() {
+        return carriedFitnessRate;
+    }
+
+    public double getCacheHitRate() {
+        return cacheHitRate;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append("generations: ").append(generations)
+                .append(", evaluations: ").append(evaluations)
+                .append(", evaluations/s: ").append((long) evaluationsPerSecond)
+                .append(", nodes/s: ").append((long) nodesPerSecond)
+                .append("\ninitialization: ").append(initializationMillis).append("ms")
+                .append(", evaluation: ").append(evaluationMillis).append("ms")
+                .append(", sorting: ").append(sortingMillis).append("ms")
+                .append(", selection: ").append(selectionMillis).append("ms");
+
+        for (int i = 0; i < operators.length; i++) {
+            s.append(", ").append(operators[i].getClass().getSimpleName()).append(": ")
+                    .append(operatorMillis[i]).append("ms (").append(operatorCalls[i]).append(" calls)");
+        }
+
+        s.append("\nallocated: ").append(allocatedBytes / 1024).append("KB")
+                .append(", last generation: ").append(lastGenerationAllocatedBytes / 1024).append("KB")
+                .append(", carried fitness: ").append(carriedFitnessRate).append("%");
+
+        if (!Double.isNaN(cacheHitRate)) {
+            s.append(", cache hit rate: ").append(cacheHitRate).append("%");
+        }
+
+        return s.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package MGPFj.engine;
+
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.RankedCandidate;
+
+import java.util.List;
+
+/**
+ * Connects the population of an engine to other populations (islands), which may run in other processes. <p/>
+ * The engine calls it once per generation. None of the methods may block, so an island never waits for the others.
+ */
+public interface Migrator {
+
+    /**
+     * Sends some of the candidates to the other islands, if it is time to.
+     * @param generation the current generation
+     * @param rankedPopulation the current population, sorted from the best to the worst
+     */
+    void emigrate(int generation, RankedCandidate[] rankedPopulation);
+
+    /**
+     * @param max the maximum number of immigrants the engine accepts
+     * @return the candidates received from the other islands since the last call. They are evaluated again.
+     */
+    List<Node> immigrate(int max);
+
+    /**
+     * Tells the other islands to stop, eg, because this island reached the max fitness.
+     */
+    void announceTermination();
+
+    /**
+     * @return true if another island asked to stop
+     */
+    boolean isTerminated();
+}
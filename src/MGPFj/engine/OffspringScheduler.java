@@ -0,0 +1,242 @@
+package MGPFj.engine;
+
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.Offspring;
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.genetic_operators.GeneticOperator;
+import MGPFj.select.Selector;
+import MGPFj.utils.LongHashSet;
+import MGPFj.utils.Tracer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Creates exactly the requested number of offspring. <p/>
+ * For each slot, exactly one genetic operator is chosen, with a chance proportional to its probability.
+ * If the operator does not create any offspring (eg, GBC finds no compatible nodes), it is applied again
+ * on new parents, as long as the retry budget of the generation allows. When the budget runs out,
+ * the slot is filled with an unchanged parent. <p/>
+ * Operators which create more offspring than the free slots (eg, GBC at the last slot) are truncated.
+ */
+public class OffspringScheduler {
+    private static final int MAX_PARENT_DRAWS = 100;
+
+    private final GeneticOperator[] operators;
+    private final double[] cumulativeProbabilities;
+    private final OperatorStatistics[] statistics;
+    private final DuplicatePolicy duplicatePolicy;
+    private final Random random;
+
+    private double duplicateRate;
+    private long fallbacks;
+
+    /**
+     * @param operators the genetic operators
+     * @param probabilities the probability of each operator. They are relative, so they need not to sum up to 100.
+     * @param duplicatePolicy how the duplicated offspring are handled
+     * @param random the random generator used for choosing the operators
+     */
+    public OffspringScheduler(GeneticOperator[] operators, Integer[] probabilities, DuplicatePolicy duplicatePolicy,
+                              Random random) {
+
+        if (operators.length != probabilities.length || operators.length == 0) {
+            throw new RuntimeException("length of GeneticOperators and probabilities are different");
+        }
+
+        this.operators = operators;
+        this.duplicatePolicy = duplicatePolicy;
+        this.random = random;
+        this.cumulativeProbabilities = new double[probabilities.length];
+        this.statistics = new OperatorStatistics[operators.length];
+
+        double sum = 0;
+        for (int i = 0; i < probabilities.length; i++) {
+            if (probabilities[i] < 0) {
+                throw new RuntimeException("Negative probability");
+            }
+            sum += probabilities[i];
+            cumulativeProbabilities[i] = sum;
+            statistics[i] = new OperatorStatistics(operators[i]);
+        }
+
+        if (sum == 0) {
+            throw new RuntimeException("All the probabilities are 0");
+        }
+    }
+
+    /**
+     * Creates the offspring of a generation.
+     * @param selector the Selector which provides the parents.
+     * @param size the number of offspring
+     * @return an array of exactly size offspring
+     */
+    public Offspring[] schedule(Selector selector, int size) {
+        Offspring[] result = new Offspring[size];
+
+        LongHashSet hashes = new LongHashSet(size);
+        int created = 0;
+        int duplicates = 0;
+        int retryBudget = size; //budget for the failed operators and the regenerated duplicates
+
+        Tracer tracer = Tracer.get();
+        boolean retry = false;
+
+        int filled = 0;
+        while (filled < size) {
+
+            List<RankedCandidate> parents = selectParents(selector);
+
+            int i = chooseOperator();
+            Object trace = tracer != null ? tracer.beginOperator() : null;
+            List<Node> nodes = evolve(i, parents);
+
+            if (nodes.isEmpty()) {
+                if (retryBudget > 0) {
+                    retryBudget--;
+                    trace(tracer, trace, i, parents, nodes, retry, "retried");
+                    retry = true;
+                } else {
+                    //a copy of the parent, so the population does not fill up with references to the same node
+                    //(the fitness is carried over, so it is not evaluated again)
+                    fallbacks++;
+                    result[filled++] = Offspring.createOffspring(parents.get(0).getNode().copyTree(null), null,
+                            parents);
+                    trace(tracer, trace, i, parents, nodes, retry, "fallback");
+                    retry = false;
+                }
+                continue;
+            }
+
+            trace(tracer, trace, i, parents, nodes, retry, "created");
+            retry = false;
+
+            for (Node node : nodes) {
+                if (filled == size) break;
+
+                Offspring offspring = Offspring.createOffspring(node, operators[i], parents);
+                created++;
+
+                //the hash set only filters, a hash which is already in it is confirmed by comparing the trees
+                if (duplicatePolicy != DuplicatePolicy.NONE && !hashes.add(offspring.getStructuralHash())
+                        && containsTwin(result, filled, offspring)) {
+                    duplicates++;
+
+                    if (duplicatePolicy == DuplicatePolicy.REGENERATE && retryBudget > 0) {
+                        retryBudget--;
+                        continue;
+                    }
+                }
+
+                result[filled++] = offspring;
+            }
+        }
+
+        duplicateRate = created == 0 ? 0 : 100.0 * duplicates / created;
+
+        return result;
+    }
+
+    /**
+     * @return the statistics of each operator, in the same order as the operators.
+     */
+    public OperatorStatistics[] getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return percentage of the duplicated offspring in the last generation.
+     */
+    public double getLastDuplicateRate() {
+        return duplicateRate;
+    }
+
+    /**
+     * @return number of slots filled with an unchanged parent because the retry budget ran out.
+     */
+    public long getFallbacks() {
+        return fallbacks;
+    }
+
+    /**
+     * Sets the counters, eg, when resuming from a checkpoint.
+     */
+    void restore(long fallbacks, double duplicateRate) {
+        this.fallbacks = fallbacks;
+        this.duplicateRate = duplicateRate;
+    }
+
+    /**
+     * @return 2 different candidates, or the same candidate twice if no different one is drawn in
+     * MAX_PARENT_DRAWS draws (eg, the population has converged to a single node)
+     */
+    private List<RankedCandidate> selectParents(Selector selector) {
+        List<RankedCandidate> parents = new ArrayList<RankedCandidate>(2);
+        parents.add(selector.nextCandidate());
+
+        RankedCandidate newCandidate = selector.nextCandidate();
+        for (int draws = 1; draws < MAX_PARENT_DRAWS && newCandidate.getNode() == parents.get(0).getNode(); draws++) {
+            newCandidate = selector.nextCandidate();
+        }
+
+        parents.add(newCandidate);
+        return parents;
+    }
+
+    private int chooseOperator() {
+        double p = random.nextDouble() * cumulativeProbabilities[cumulativeProbabilities.length - 1];
+
+        for (int i = 0; i < cumulativeProbabilities.length; i++) {
+            if (p < cumulativeProbabilities[i]) {
+                return i;
+            }
+        }
+
+        // should only get here if rounding error
+        return cumulativeProbabilities.length - 1;
+    }
+
+    private void trace(Tracer tracer, Object trace, int i, List<RankedCandidate> parents, List<Node> nodes,
+                       boolean retry, String outcome) {
+        if (trace == null) return;
+
+        int parentNodeCount = 0;
+        for (RankedCandidate parent : parents) {
+            parentNodeCount += parent.getNode().getNodeCount();
+        }
+
+        int offspringNodeCount = 0;
+        for (Node node : nodes) {
+            offspringNodeCount += node.getNodeCount();
+        }
+
+        tracer.endOperator(trace, operators[i], parentNodeCount, nodes.size(), offspringNodeCount, retry, outcome);
+    }
+
+    /**
+     * @return true if one of the first count offspring is structurally equal to the offspring
+     */
+    private static boolean containsTwin(Offspring[] offspring, int count, Offspring twin) {
+        for (int i = 0; i < count; i++) {
+            if (offspring[i].getStructuralHash() == twin.getStructuralHash()
+                    && offspring[i].getNode().isStructurallyEqual(twin.getNode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Node> evolve(int i, List<RankedCandidate> parents) {
+        List<Node> selectedNodes = new ArrayList<Node>(parents.size());
+        for (RankedCandidate parent : parents) {
+            selectedNodes.add(parent.getNode());
+        }
+
+        long start = System.nanoTime();
+        List<Node> nodes = operators[i].evolve(selectedNodes);
+        statistics[i].record(nodes.size(), System.nanoTime() - start);
+
+        return nodes;
+    }
+}
@@ -0,0 +1,89 @@
+package MGPFj.engine;
+
+import MGPFj.genetic_operators.GeneticOperator;
+
+/**
+ * Counts how often a genetic operator was applied, how often it failed to create any offspring,
+ * and how much time it took.
+ */
+public class OperatorStatistics {
+
+    private final GeneticOperator operator;
+
+    private long attempts;
+    private long failures;
+    private long offspring;
+    private long nanos;
+
+    public OperatorStatistics(GeneticOperator operator) {
+        this.operator = operator;
+    }
+
+    void record(int createdOffspring, long elapsedNanos) {
+        attempts++;
+        offspring += createdOffspring;
+        nanos += elapsedNanos;
+
+        if (createdOffspring == 0) {
+            failures++;
+        }
+    }
+
+    /**
+     * Sets the counts, eg, when resuming from a checkpoint.
+     */
+    void restore(long attempts, long failures, long offspring, long nanos) {
+        this.attempts = attempts;
+        this.failures = failures;
+        this.offspring = offspring;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Adds the counts of another statistics of the same operator (eg, from another thread).
+     */
+    void add(OperatorStatistics statistics) {
+        attempts += statistics.attempts;
+        failures += statistics.failures;
+        offspring += statistics.offspring;
+        nanos += statistics.nanos;
+    }
+
+    public GeneticOperator getOperator() {
+        return operator;
+    }
+
+    /**
+     * @return number of times the operator was applied
+     */
+    public long getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return number of times the operator did not create any offspring
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return number of created offspring, including the ones which were not used.
+     */
+    public long getOffspring() {
+        return offspring;
+    }
+
+    /**
+     * @return total time spent in the operator, in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return operator.getClass().getSimpleName() + ": attempts: " + attempts + ", failures: " + failures
+                + ", offspring: " + offspring + ", time: " + nanos / 1000000 + "ms";
+    }
+}
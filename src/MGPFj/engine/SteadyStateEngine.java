@@ -0,0 +1,334 @@
+package MGPFj.engine;
+
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.Offspring;
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.fitness.FitnessFunction;
+import MGPFj.genetic_operators.GeneticOperator;
+import MGPFj.genetic_operators.crossover.GBC;
+import MGPFj.genetic_operators.mutation.GBM;
+import MGPFj.genetic_operators.reproduction.DirectCopy;
+import MGPFj.grammar.CFG;
+import MGPFj.initialize.GBIM;
+import MGPFj.initialize.Initializer;
+import MGPFj.select.Selector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A steady state engine. Instead of rebuilding the whole population in each generation,
+ * it repeatedly breeds and evaluates a small batch of offspring, and each offspring replaces
+ * the worst individual of the population in place. <p/>
+ * Only the new individuals are evaluated, the order is updated incrementally in a heap,
+ * and the memory stays flat since there is no generation sized garbage. <p/>
+ * The {@link EvolutionListener}s only get {@link EvolutionListener#bestImproved(int, RankedCandidate)}, where the
+ * generation is the number of created offspring divided by the population size.
+ */
+public class SteadyStateEngine {
+    private final Initializer initializer;
+    private final FitnessFunction fitnessFunction;
+    private final OffspringScheduler scheduler;
+    private final DuplicatePolicy duplicatePolicy;
+
+    private final int popSize;
+    private final int batchSize;
+    private final int tournamentSize;
+    private final long evaluations;
+    private final boolean terminateOnReachingMaxFitness;
+    private final Random random;
+    private final List<EvolutionListener> listeners;
+
+    private static final int LISTENER_QUEUE_CAPACITY = 1024;
+    private static final long LISTENER_CLOSE_TIMEOUT_MILLIS = 10000;
+
+    private SteadyStateEngine(Initializer initializer,
+                              FitnessFunction fitnessFunction,
+                              GeneticOperator[] operators,
+                              Integer[] probabilities,
+                              DuplicatePolicy duplicatePolicy,
+                              boolean terminateOnReachingMaxFitness, int popSize, int batchSize, int tournamentSize,
+                              long evaluations, List<EvolutionListener> listeners) {
+        this.initializer = initializer;
+        this.fitnessFunction = fitnessFunction;
+        this.duplicatePolicy = duplicatePolicy;
+        this.terminateOnReachingMaxFitness = terminateOnReachingMaxFitness;
+
+        this.popSize = popSize;
+        this.batchSize = batchSize;
+        this.tournamentSize = tournamentSize;
+        this.evaluations = evaluations;
+        this.listeners = listeners;
+
+        random = new Random();
+        scheduler = new OffspringScheduler(operators, probabilities, duplicatePolicy, random);
+    }
+
+
+    /**
+     * Runs until the given number of offspring are created, or until the max fitness is reached.
+     * @param loggerEnabled prints the best candidate whenever it improves, with a {@link SummaryLogger}
+     * @return the final population, sorted from the best to the worst.
+     */
+    public RankedCandidate[] run(boolean loggerEnabled) {
+
+        List<EvolutionListener> runListeners = new ArrayList<EvolutionListener>(listeners);
+        if (loggerEnabled) {
+            runListeners.add(new SummaryLogger(fitnessFunction));
+        }
+        ListenerDispatcher dispatcher = new ListenerDispatcher(runListeners, LISTENER_QUEUE_CAPACITY,
+                LISTENER_CLOSE_TIMEOUT_MILLIS);
+
+        //the listener thread is stopped and its queued events are delivered, even if the run fails
+        try {
+            return evolve(dispatcher);
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    private RankedCandidate[] evolve(ListenerDispatcher dispatcher) {
+
+        //creating and evaluating the initial population
+        List<Node> initialPopulation = initializer.generate(0, popSize, null);
+
+        CandidateHeap population = new CandidateHeap(popSize);
+        RankedCandidate best = null;
+
+        for (RankedCandidate candidate : RankedCandidate.rankAndSort(initialPopulation, fitnessFunction)) {
+            population.add(candidate);
+            if (best == null) best = candidate;
+        }
+        dispatcher.bestImproved(0, best);
+
+        Selector selector = new HeapTournamentSelector(population, tournamentSize, random);
+        long created = 0;
+
+        while (created < evaluations) {
+
+            //termination check
+            if (terminateOnReachingMaxFitness && best.getFitness() == 0.0) {
+                break;
+            }
+
+            //breeding a batch
+            int size = (int) Math.min(batchSize, evaluations - created);
+            Offspring[] offspring = scheduler.schedule(selector, size);
+
+            List<Node> nodes = new ArrayList<Node>(size);
+            double[] knownFitness = new double[size];
+            for (int i = 0; i < size; i++) {
+                nodes.add(offspring[i].getNode());
+                knownFitness[i] = offspring[i].getCachedFitness();
+            }
+
+            //evaluating only the new individuals, and replacing the worst ones
+            RankedCandidate previousBest = best;
+            RankedCandidate[] rankedBatch = duplicatePolicy == DuplicatePolicy.REUSE_FITNESS
+                    ? RankedCandidate.rankAndSortDistinct(nodes, knownFitness, fitnessFunction)
+                    : RankedCandidate.rankAndSort(nodes, knownFitness, fitnessFunction);
+            for (RankedCandidate candidate : rankedBatch) {
+                if (candidate.compareTo(population.peekWorst()) > 0) {
+                    //the rest of the batch is even worse
+                    break;
+                }
+
+                population.replaceWorst(candidate);
+
+                if (candidate.compareTo(best) < 0) {
+                    best = candidate;
+                }
+            }
+
+            created += size;
+
+            if (best != previousBest) {
+                dispatcher.bestImproved((int) Math.min(created / popSize, Integer.MAX_VALUE), best);
+            }
+        }
+
+        return population.toSortedArray();
+    }
+
+    /**
+     * @return the attempts, failures and time of each genetic operator, in the same order as the operators.
+     */
+    public OperatorStatistics[] getOperatorStatistics() {
+        return scheduler.getStatistics();
+    }
+
+    /**
+     * Selects the best of a few random individuals of the heap.
+     */
+    private static class HeapTournamentSelector implements Selector {
+        private final CandidateHeap population;
+        private final int tournamentSize;
+        private final Random random;
+
+        private HeapTournamentSelector(CandidateHeap population, int tournamentSize, Random random) {
+            this.population = population;
+            this.tournamentSize = tournamentSize;
+            this.random = random;
+        }
+
+        @Override
+        public Node next() {
+            return nextCandidate().getNode();
+        }
+
+        @Override
+        public RankedCandidate nextCandidate() {
+            RankedCandidate winner = population.get(random.nextInt(population.size()));
+
+            for (int i = 1; i < tournamentSize; i++) {
+                RankedCandidate candidate = population.get(random.nextInt(population.size()));
+                if (candidate.getFitness() < winner.getFitness()) {
+                    winner = candidate;
+                }
+            }
+
+            return winner;
+        }
+    }
+
+
+    //Creator stuff
+
+    public static SteadyStateEngineLazyCreator start(CFG cfg, FitnessFunction fitnessFunction, int maxDepth,
+                                                     int popSize, long evaluations) {
+        return new SteadyStateEngineLazyCreator(cfg, fitnessFunction, maxDepth, popSize, evaluations);
+    }
+
+    public static SteadyStateEngineLazyCreator start(CFG cfg, FitnessFunction fitnessFunction) {
+        return new SteadyStateEngineLazyCreator(cfg, fitnessFunction, 5, 100, 10000);
+    }
+
+
+    public static class SteadyStateEngineLazyCreator {
+        private final FitnessFunction fitnessFunction;
+        private final int popSize;
+        private final long evaluations;
+
+        private Initializer initializer;
+        private GeneticOperator[] operators;
+        private Integer[] probabilities;
+        private DuplicatePolicy duplicatePolicy;
+        private int batchSize;
+        private int tournamentSize;
+        private boolean terminateOnReachingMaxFitness; //stop iteration.
+        private List<EvolutionListener> listeners = new ArrayList<EvolutionListener>();
+
+
+        private SteadyStateEngineLazyCreator(CFG cfg, FitnessFunction fitnessFunction, int maxDepth, int popSize,
+                                             long evaluations) {
+            this.fitnessFunction = fitnessFunction;
+            this.popSize = popSize;
+            this.evaluations = evaluations;
+
+            this.initializer = new GBIM(cfg, maxDepth);
+            //default genetic operators::
+            GeneticOperator reproduction = new DirectCopy();
+            GeneticOperator crossover = new GBC(cfg, maxDepth);
+            GeneticOperator mutation = new GBM(cfg, maxDepth);
+
+            this.operators = new GeneticOperator[]{reproduction, crossover, mutation};
+            this.probabilities = new Integer[]{5, 90, 2};
+
+            this.duplicatePolicy = DuplicatePolicy.NONE;
+            this.batchSize = 2;
+            this.tournamentSize = 4;
+            this.terminateOnReachingMaxFitness = false;
+        }
+
+        public SteadyStateEngineLazyCreator setInitializer (Initializer initializer) {
+            this.initializer = initializer;
+            return this;
+        }
+
+        /**
+         * This will change the probabilities of the default genetic operators. <p/>
+         * Exactly one operator is applied for each offspring. The probabilities are relative to each other. <p/>
+         * [NOTE: do not call this method if you already specified your custom genetic operators.]
+         */
+        public SteadyStateEngineLazyCreator setDefaultProbabilities(int reproductionProbability,
+                                                                    int crossoverProbability,
+                                                                    int mutationProbability){
+            this.probabilities[0] = reproductionProbability;
+            this.probabilities[1] = crossoverProbability;
+            this.probabilities[2] = mutationProbability;
+
+            return this;
+        }
+
+        /**
+         * This will replace default genetic operators.
+         * @param geneticOperators
+         * @param probabilities relative probabilities of the operators
+         */
+        public SteadyStateEngineLazyCreator setGeneticOperators(GeneticOperator[] geneticOperators,
+                                                                Integer[] probabilities) {
+
+            if (geneticOperators.length != probabilities.length) {
+                throw new RuntimeException("length of GeneticOperators and probabilities are different");
+            }
+
+            this.operators = geneticOperators;
+            this.probabilities = probabilities;
+
+            return this;
+        }
+
+        /**
+         * @param batchSize number of offspring bred and evaluated together. The default is 2.
+         */
+        public SteadyStateEngineLazyCreator setBatchSize(int batchSize) {
+
+            if (batchSize <= 0 || batchSize > popSize) {
+                throw new RuntimeException("Batch size must be between 1 and popSize");
+            }
+
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * @param tournamentSize number of individuals competing to be a parent. The default is 4.
+         */
+        public SteadyStateEngineLazyCreator setTournamentSize(int tournamentSize) {
+
+            if (tournamentSize <= 0) {
+                throw new RuntimeException("Tournament size must be positive");
+            }
+
+            this.tournamentSize = tournamentSize;
+            return this;
+        }
+
+        public SteadyStateEngineLazyCreator setDuplicateElimination(DuplicatePolicy duplicatePolicy) {
+            this.duplicatePolicy = duplicatePolicy;
+            return this;
+        }
+
+        public SteadyStateEngineLazyCreator setTerminateOnMaxFitness(boolean terminateOnMaxFitness) {
+            this.terminateOnReachingMaxFitness = terminateOnMaxFitness;
+            return this;
+        }
+
+        /**
+         * The listener is called on a background thread, see {@link EvolutionListener}.
+         * @param listener the listener
+         */
+        public SteadyStateEngineLazyCreator addListener(EvolutionListener listener) {
+            this.listeners.add(listener);
+
+            return this;
+        }
+
+        public SteadyStateEngine finish() {
+            return new SteadyStateEngine(initializer, fitnessFunction, operators, probabilities, duplicatePolicy,
+                    terminateOnReachingMaxFitness, popSize, batchSize, tournamentSize, evaluations,
+                    new ArrayList<EvolutionListener>(listeners));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package MGPFj.engine;
+
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.distributed.DistributedFitness;
+import MGPFj.fitness.FitnessFunction;
+import MGPFj.fitness.FitnessWrapper;
+import MGPFj.fitness.PersistentFitnessCache;
+
+/**
+ * The logger used when a run is started with loggerEnabled. It prints one line per generation,
+ * the tree of each new best candidate, and the operator statistics at the end.
+ */
+public class SummaryLogger implements EvolutionListener {
+
+    private final DistributedFitness distributedFitness;
+    private final PersistentFitnessCache cache;
+
+    public SummaryLogger() {
+        this(null);
+    }
+
+    /**
+     * @param fitnessFunction its metrics are printed too, if it is or wraps a {@link DistributedFitness} or a
+     *                        {@link PersistentFitnessCache}.
+     */
+    public SummaryLogger(FitnessFunction fitnessFunction) {
+        this.distributedFitness = FitnessWrapper.find(fitnessFunction, DistributedFitness.class);
+        this.cache = FitnessWrapper.find(fitnessFunction, PersistentFitnessCache.class);
+    }
+
+    @Override
+    public void generationFinished(GenerationSummary summary) {
+        StringBuilder s = new StringBuilder(summary.toString());
+
+        if (summary.getShrinkPercentage() > 0) {
+            s.append(", shrink: ").append(summary.getShrinkPercentage()).append("%");
+        }
+        if (summary.getDuplicateRate() > 0) {
+            s.append(", duplicates: ").append(summary.getDuplicateRate()).append("%");
+        }
+        //taken when the generation finished, since the fitness function is already evaluating the next one
+        if (!Double.isNaN(summary.getLoadImbalance())) {
+            s.append(", load imbalance: ").append(summary.getLoadImbalance());
+        }
+
+        System.out.println(s);
+
+        if (distributedFitness != null) {
+            System.out.println(distributedFitness);
+        }
+        if (cache != null) {
+            System.out.println(cache);
+        }
+    }
+
+    @Override
+    public void bestImproved(int generation, RankedCandidate best) {
+        System.out.println("new best at gen " + generation + ": " + best);
+    }
+
+    @Override
+    public void runFinished(EvolutionState state) {
+        for (OperatorStatistics statistics : state.getOperatorStatistics()) {
+            System.out.println(statistics);
+        }
+    }
+}
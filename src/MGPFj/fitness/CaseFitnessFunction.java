@@ -0,0 +1,24 @@
+package MGPFj.fitness;
+
+import MGPFj.chromosome.Node;
+
+/**
+ * A fitness function which is measured over a set of fitness cases (ie, the rows of a data set).
+ * The fitness is expected to be additive, the total error is the sum of the errors of each case.
+ */
+public interface CaseFitnessFunction extends FitnessFunction {
+
+    /**
+     * @return the number of fitness cases in the data set.
+     */
+    int getCaseCount();
+
+    /**
+     * Evaluates the node only on a subset of the fitness cases.
+     * @param node the tree being evaluated
+     * @param cases the indices of the fitness cases
+     * @param count number of indices to take from the cases array
+     * @return the fitness value over the given cases. 0 is max fitness.
+     */
+    double evaluate(Node node, int[] cases, int count);
+}
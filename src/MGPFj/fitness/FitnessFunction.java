@@ -2,6 +2,8 @@ package MGPFj.fitness;
 
 import MGPFj.chromosome.Node;
 
+import java.util.List;
+
 /**
  * Finds the MGPFj.fitness value of a node.
  */
@@ -12,4 +14,17 @@ public interface FitnessFunction {
      * @return the fitness value. 0 is max fitness.
      */
     double evaluate (Node node);
+
+    /**
+     * Evaluates a whole population at once. {@link MGPFj.chromosome.RankedCandidate#rankAndSort} calls this. <p/>
+     * By default the nodes are evaluated one by one. Implementations may override this to amortize the setup,
+     * share buffers, compile the population or split the work across threads.
+     * @param nodes the trees being evaluated
+     * @param out the array which receives the fitness value of each node, in the same order. 0 is max fitness.
+     */
+    default void evaluateAll(List<Node> nodes, double[] out) {
+        for (int i = 0; i < nodes.size(); i++) {
+            out[i] = evaluate(nodes.get(i));
+        }
+    }
 }
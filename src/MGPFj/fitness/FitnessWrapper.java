@@ -0,0 +1,32 @@
+package MGPFj.fitness;
+
+/**
+ * A fitness function which adds something (eg, threads or a cache) around another one, and evaluates the trees
+ * with it. <p/>
+ * The engine looks for the functions it reports on (eg, a {@link PersistentFitnessCache}) through the wrappers with
+ * {@link #find(FitnessFunction, Class)}, so they are found wherever they are in the stack.
+ */
+public interface FitnessWrapper extends FitnessFunction {
+
+    /**
+     * @return the wrapped fitness function
+     */
+    FitnessFunction getDelegate();
+
+    /**
+     * @param fitnessFunction the outermost fitness function
+     * @param type the class of the fitness function to look for
+     * @return the first fitness function of the given class, from the outermost one through the delegates of the
+     * wrappers, or null if there is none
+     */
+    static <T extends FitnessFunction> T find(FitnessFunction fitnessFunction, Class<T> type) {
+        while (fitnessFunction != null) {
+            if (type.isInstance(fitnessFunction)) {
+                return type.cast(fitnessFunction);
+            }
+            fitnessFunction = fitnessFunction instanceof FitnessWrapper
+                    ? ((FitnessWrapper) fitnessFunction).getDelegate() : null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,31 @@
+package MGPFj.fitness;
+
+/**
+ * A fitness function whose values change between generations (eg, {@link SubsampledFitness}, which evaluates each
+ * generation on another subset of the fitness cases). <p/>
+ * The engine calls {@link #nextGeneration(int)} at the start of each generation, and re-evaluates the best candidates
+ * of each generation with {@link #getFullFitness()}, so the reported and kept candidates have their real fitness. <p/>
+ * The fitness functions which wrap another one (eg, {@link ParallelFitness}) implement this interface too, and
+ * forward the calls to the wrapped function, so the engine still finds it.
+ */
+public interface GenerationAware {
+
+    /**
+     * Called by the engine at the start of each generation, before its population is evaluated. <p/>
+     * [NOTE: a run resumed from a checkpoint calls it first with the generation where the run stopped, so the
+     * values of a generation must follow from its number, not from the calls before it.]
+     * @param generation the generation which starts
+     */
+    void nextGeneration(int generation);
+
+    /**
+     * @return the fitness function whose values do not change between generations (eg, over the full data set),
+     * or null if the fitness does not change
+     */
+    FitnessFunction getFullFitness();
+
+    /**
+     * @return number of best candidates of each generation re-evaluated with the full fitness function.
+     */
+    int getEliteCount();
+}
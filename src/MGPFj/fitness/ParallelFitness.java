@@ -0,0 +1,194 @@
+package MGPFj.fitness;
+
+import MGPFj.chromosome.Node;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates the population on several threads, scheduling the most expensive nodes first. <p/>
+ * The cost of a node is estimated as its node count times the number of fitness cases. The nodes are sorted by
+ * this cost, and each worker repeatedly takes the most expensive node which is not taken yet. So the large trees
+ * start early, and the small ones fill the gaps at the end instead of leaving some workers idle. <p/>
+ * After each call, the load imbalance of the workers is kept (see {@link #getLastLoadImbalance()}). <p/>
+ * [NOTE: the wrapped fitness function is called from several threads at once.]
+ */
+public class ParallelFitness implements FitnessWrapper, GenerationAware {
+
+    private final FitnessFunction fitnessFunction;
+    private final ForkJoinPool pool;
+    private final int threads;
+
+    private volatile double lastLoadImbalance = 1;
+    private volatile double lastEfficiency = 1;
+    private volatile long lastWallNanos;
+
+    /**
+     * @param fitnessFunction the fitness function
+     * @param threads number of worker threads
+     */
+    public ParallelFitness(FitnessFunction fitnessFunction, int threads) {
+
+        if (threads <= 0) {
+            throw new RuntimeException("Thread count must be positive");
+        }
+
+        this.fitnessFunction = fitnessFunction;
+        this.threads = threads;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Uses one worker thread per available processor.
+     */
+    public ParallelFitness(FitnessFunction fitnessFunction) {
+        this(fitnessFunction, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public double evaluate(Node node) {
+        return fitnessFunction.evaluate(node);
+    }
+
+    @Override
+    public void evaluateAll(final List<Node> nodes, final double[] out) {
+
+        //estimating the costs and sorting from the most expensive to the cheapest
+        final long[] costs = new long[nodes.size()];
+        Integer[] order = new Integer[nodes.size()];
+        long cases = getCaseCount();
+
+        for (int i = 0; i < order.length; i++) {
+            costs[i] = nodes.get(i).getNodeCount() * cases;
+            order[i] = i;
+        }
+
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Long.compare(costs[b], costs[a]);
+            }
+        });
+
+        final int workers = Math.max(1, Math.min(threads, order.length));
+        final long[] busyNanos = new long[workers];
+        final AtomicInteger next = new AtomicInteger();
+        final Integer[] sortedOrder = order;
+
+        long start = System.nanoTime();
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                RecursiveAction[] tasks = new RecursiveAction[workers];
+
+                for (int w = 0; w < workers; w++) {
+                    final int worker = w;
+                    tasks[w] = new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            long busy = 0;
+                            int k;
+                            while ((k = next.getAndIncrement()) < sortedOrder.length) {
+                                int i = sortedOrder[k];
+                                long t = System.nanoTime();
+                                out[i] = fitnessFunction.evaluate(nodes.get(i));
+                                busy += System.nanoTime() - t;
+                            }
+                            busyNanos[worker] = busy;
+                        }
+                    };
+                }
+
+                invokeAll(tasks);
+            }
+        });
+
+        lastWallNanos = System.nanoTime() - start;
+
+        long max = 0;
+        long sum = 0;
+        for (long busy : busyNanos) {
+            max = Math.max(max, busy);
+            sum += busy;
+        }
+
+        double mean = (double) sum / workers;
+        lastLoadImbalance = mean == 0 ? 1 : max / mean;
+        lastEfficiency = lastWallNanos == 0 ? 1 : (double) sum / (workers * lastWallNanos);
+    }
+
+    /**
+     * @return the busy time of the busiest worker divided by the mean busy time, in the last call.
+     * 1.0 means the work was perfectly balanced.
+     */
+    public double getLastLoadImbalance() {
+        return lastLoadImbalance;
+    }
+
+    /**
+     * @return the total busy time of the workers divided by (workers x wall time), in the last call.
+     * 1.0 means no worker was ever idle.
+     */
+    public double getLastEfficiency() {
+        return lastEfficiency;
+    }
+
+    /**
+     * @return the wall time of the last call, in nanoseconds
+     */
+    public long getLastWallNanos() {
+        return lastWallNanos;
+    }
+
+    @Override
+    public void nextGeneration(int generation) {
+        if (fitnessFunction instanceof GenerationAware) {
+            ((GenerationAware) fitnessFunction).nextGeneration(generation);
+        }
+    }
+
+    @Override
+    public FitnessFunction getDelegate() {
+        return fitnessFunction;
+    }
+
+    @Override
+    public FitnessFunction getFullFitness() {
+        return fitnessFunction instanceof GenerationAware ? ((GenerationAware) fitnessFunction).getFullFitness() : null;
+    }
+
+    @Override
+    public int getEliteCount() {
+        return fitnessFunction instanceof GenerationAware ? ((GenerationAware) fitnessFunction).getEliteCount() : 0;
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    public void close() {
+        pool.shutdown();
+    }
+
+    private long getCaseCount() {
+        if (fitnessFunction instanceof CaseFitnessFunction) {
+            return Math.max(1, ((CaseFitnessFunction) fitnessFunction).getCaseCount());
+        }
+
+        if (fitnessFunction instanceof SubsampledFitness) {
+            return ((SubsampledFitness) fitnessFunction).getSampleSize();
+        }
+
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelFitness: threads: " + threads + ", load imbalance: " + lastLoadImbalance
+                + ", efficiency: " + lastEfficiency + ", time: " + lastWallNanos / 1000000 + "ms";
+    }
+}
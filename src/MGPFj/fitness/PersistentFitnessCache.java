@@ -0,0 +1,316 @@
+package MGPFj.fitness;
+
+import MGPFj.chromosome.Node;
+import MGPFj.utils.Tracer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the fitness of the evaluated trees in a memory mapped file, so other runs (and other JVMs at the same
+ * time) do not evaluate them again. <p/>
+ * The file is a fixed size open addressing hash table. The key of a tree is its structural hash mixed with a
+ * fingerprint, which must identify everything else the fitness depends on (eg, the data set and the settings of the
+ * fitness function). So runs with different data sets can share the same file without seeing each other's values.
+ * <p/>
+ * Each slot holds the key, the fitness and a checksum of both. The JVMs write to the file without locks,
+ * so a slot being written by another JVM may be read half written. Its checksum does not match then,
+ * and it is treated as a miss. The fitness is read once and returned only if it matches the checksum. <p/>
+ * A key is looked up in a window of a few slots. When the window is full, a slot of the window is overwritten,
+ * so the file never grows over its size cap. <p/>
+ * [NOTE: two structurally equal trees are assumed to have the same fitness. So do not wrap a
+ * {@link SubsampledFitness}: its fitness changes with each sample, and the cache would return the fitness of an
+ * old sample.]
+ */
+public class PersistentFitnessCache implements FitnessWrapper, GenerationAware {
+
+    private static final int MAGIC = 0x4D474643;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 24;
+    private static final int WINDOW = 8;
+
+    private final FitnessFunction fitnessFunction;
+    private final long fingerprint;
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private final int mask;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Opens the cache file, or creates it if it does not exist.
+     * @param fitnessFunction the fitness function, called for the trees which are not in the cache
+     * @param file the cache file
+     * @param fingerprint identifies the data set and the settings of the fitness function
+     * @param maxBytes the size cap of a new file. An existing file keeps its size.
+     * @throws IOException if the file cannot be opened or is not a cache file
+     */
+    public PersistentFitnessCache(FitnessFunction fitnessFunction, File file, long fingerprint, long maxBytes)
+            throws IOException {
+
+        if (maxBytes < HEADER_SIZE + WINDOW * SLOT_SIZE || maxBytes > Integer.MAX_VALUE) {
+            throw new RuntimeException("The size cap must be between " + (HEADER_SIZE + WINDOW * SLOT_SIZE)
+                    + " bytes and 2GB");
+        }
+
+        this.fitnessFunction = fitnessFunction;
+        this.fingerprint = fingerprint;
+        this.file = file;
+
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            int slots;
+
+            //only one JVM creates the header
+            FileLock lock = channel.lock();
+            try {
+                if (channel.size() == 0) {
+                    slots = Integer.highestOneBit((int) ((maxBytes - HEADER_SIZE) / SLOT_SIZE));
+
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                    header.putInt(MAGIC).putInt(VERSION).putInt(slots).putInt(0);
+                    header.flip();
+                    channel.write(header, 0);
+                    //the slots are filled with zeros, which means empty
+                    channel.write(ByteBuffer.allocate(1), HEADER_SIZE + (long) slots * SLOT_SIZE - 1);
+                } else {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                    channel.read(header, 0);
+                    header.flip();
+
+                    if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                        throw new IOException("Not a fitness cache: " + file);
+                    }
+                    slots = header.getInt();
+                }
+            } finally {
+                lock.release();
+            }
+
+            this.mask = slots - 1;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * SLOT_SIZE);
+        } finally {
+            //the mapping stays valid after the channel is closed
+            channel.close();
+        }
+    }
+
+    @Override
+    public double evaluate(Node node) {
+        Tracer tracer = Tracer.get();
+        Object trace = tracer != null ? tracer.beginCacheLookup() : null;
+
+        long key = key(node);
+        double cached = find(key);
+
+        if (trace != null) {
+            tracer.endCacheLookup(trace, node.getNodeCount(), !Double.isNaN(cached));
+        }
+
+        if (!Double.isNaN(cached)) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        double fitness = fitnessFunction.evaluate(node);
+        put(key, fitness);
+        return fitness;
+    }
+
+    @Override
+    public void evaluateAll(List<Node> nodes, double[] out) {
+        List<Node> missed = new ArrayList<Node>();
+        List<Integer> missedIndices = new ArrayList<Integer>();
+        long[] keys = new long[nodes.size()];
+        Tracer tracer = Tracer.get();
+
+        for (int i = 0; i < nodes.size(); i++) {
+            Object trace = tracer != null ? tracer.beginCacheLookup() : null;
+
+            keys[i] = key(nodes.get(i));
+            double cached = find(keys[i]);
+
+            if (trace != null) {
+                tracer.endCacheLookup(trace, nodes.get(i).getNodeCount(), !Double.isNaN(cached));
+            }
+
+            if (!Double.isNaN(cached)) {
+                out[i] = cached;
+            } else {
+                missed.add(nodes.get(i));
+                missedIndices.add(i);
+            }
+        }
+
+        hits.addAndGet(nodes.size() - missed.size());
+        misses.addAndGet(missed.size());
+
+        //the missed trees are evaluated together, so the wrapped function can still batch or parallelize them
+        if (!missed.isEmpty()) {
+            double[] fitness = new double[missed.size()];
+            fitnessFunction.evaluateAll(missed, fitness);
+
+            for (int j = 0; j < fitness.length; j++) {
+                int i = missedIndices.get(j);
+                out[i] = fitness[j];
+                put(keys[i], fitness[j]);
+            }
+        }
+    }
+
+    @Override
+    public void nextGeneration(int generation) {
+        if (fitnessFunction instanceof GenerationAware) {
+            ((GenerationAware) fitnessFunction).nextGeneration(generation);
+        }
+    }
+
+    @Override
+    public FitnessFunction getDelegate() {
+        return fitnessFunction;
+    }
+
+    @Override
+    public FitnessFunction getFullFitness() {
+        return fitnessFunction instanceof GenerationAware ? ((GenerationAware) fitnessFunction).getFullFitness() : null;
+    }
+
+    @Override
+    public int getEliteCount() {
+        return fitnessFunction instanceof GenerationAware ? ((GenerationAware) fitnessFunction).getEliteCount() : 0;
+    }
+
+    /**
+     * @return the number of trees found in the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of trees which were evaluated
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the percentage of the trees found in the cache
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : 100.0 * hits.get() / total;
+    }
+
+    /**
+     * @return the number of entries overwritten because their window was full
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return the number of slots of the file
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Writes the changed pages to the disk. The operating system also does it by itself.
+     */
+    public void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public String toString() {
+        return "PersistentFitnessCache: " + file + ", hit rate: " + getHitRate() + "%, evictions: " + evictions.get();
+    }
+
+    private long key(Node node) {
+        long h = node.getStructuralHash() ^ fingerprint * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 32)) * 0xD6E8FEB86659FD93L;
+        h ^= h >>> 32;
+
+        //0 marks the empty slots
+        return h == 0 ? 1 : h;
+    }
+
+    private static long checksum(long key, long fitnessBits) {
+        long h = key * 0xBF58476D1CE4E5B9L ^ fitnessBits;
+        h = (h ^ (h >>> 31)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 29);
+    }
+
+    private int offset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    /**
+     * @return the fitness of a valid entry of the key, or NaN if there is none. The fitness is the value which
+     * matched the checksum, the slot is not read again, since another JVM may overwrite it in between.
+     */
+    private double find(long key) {
+        int start = (int) key & mask;
+
+        for (int i = 0; i < WINDOW; i++) {
+            int slot = (start + i) & mask;
+            int offset = offset(slot);
+            long slotKey = buffer.getLong(offset);
+
+            if (slotKey == 0) {
+                return Double.NaN;
+            }
+
+            if (slotKey == key) {
+                long fitnessBits = buffer.getLong(offset + 8);
+                //a half written slot is a miss
+                return buffer.getLong(offset + 16) == checksum(key, fitnessBits) && buffer.getLong(offset) == key
+                        ? Double.longBitsToDouble(fitnessBits) : Double.NaN;
+            }
+        }
+
+        return Double.NaN;
+    }
+
+    private void put(long key, double fitness) {
+        int start = (int) key & mask;
+        int target = -1;
+
+        for (int i = 0; i < WINDOW; i++) {
+            int slot = (start + i) & mask;
+            long slotKey = buffer.getLong(offset(slot));
+
+            if (slotKey == 0 || slotKey == key) {
+                target = slot;
+                break;
+            }
+        }
+
+        if (target == -1) {
+            //the window is full, one of its slots is overwritten
+            target = (start + (int) (key >>> 61)) & mask;
+            evictions.incrementAndGet();
+        }
+
+        long fitnessBits = Double.doubleToRawLongBits(fitness);
+        int offset = offset(target);
+        buffer.putLong(offset, key);
+        buffer.putLong(offset + 8, fitnessBits);
+        buffer.putLong(offset + 16, checksum(key, fitnessBits));
+    }
+}
@@ -0,0 +1,130 @@
+package MGPFj.fitness;
+
+import MGPFj.chromosome.Node;
+
+import java.util.Random;
+
+/**
+ * Evaluates the nodes on a rotating random subset of the fitness cases (interleaved sampling). <p/>
+ * The engine moves to the next subset at the start of each generation, and re-evaluates the best
+ * candidates on the full data set, so that the reported or kept candidates always have their real fitness. <p/>
+ * The fitness over a subset is scaled up to the size of the data set, so both values are comparable. <p/>
+ * The subset of a generation follows from the generation number and a seed drawn when the function is created,
+ * so a run resumed from a checkpoint gets the same subsets as the uninterrupted run.
+ */
+public class SubsampledFitness implements FitnessWrapper, GenerationAware {
+
+    private final CaseFitnessFunction fitnessFunction;
+    private final int sampleSize;
+    private final int eliteCount;
+    private final double scale;
+    private final int[] permutation;
+    private final int[] sample;
+    private final long seed;
+
+    private int epoch;
+
+    /**
+     * @param fitnessFunction the fitness function which is measured over the full data set.
+     * @param sampleSize number of fitness cases evaluated in each generation.
+     * @param eliteCount number of best candidates re-evaluated on the full data set in each generation.
+     */
+    public SubsampledFitness(CaseFitnessFunction fitnessFunction, int sampleSize, int eliteCount) {
+        this(fitnessFunction, sampleSize, eliteCount, new Random());
+    }
+
+    /**
+     * @param fitnessFunction the fitness function which is measured over the full data set.
+     * @param sampleSize number of fitness cases evaluated in each generation.
+     * @param eliteCount number of best candidates re-evaluated on the full data set.
+     * @param random the random generator of the samples, eg, seeded for reproducible runs
+     */
+    public SubsampledFitness(CaseFitnessFunction fitnessFunction, int sampleSize, int eliteCount, Random random) {
+        int caseCount = fitnessFunction.getCaseCount();
+
+        if (sampleSize <= 0 || sampleSize > caseCount) {
+            throw new RuntimeException("Sample size must be between 1 and the number of fitness cases");
+        }
+
+        if (eliteCount < 0) {
+            throw new RuntimeException("Negative elite count");
+        }
+
+        this.fitnessFunction = fitnessFunction;
+        this.sampleSize = sampleSize;
+        this.eliteCount = eliteCount;
+        this.scale = (double) caseCount / sampleSize;
+        this.sample = new int[sampleSize];
+        this.permutation = new int[caseCount];
+        this.seed = random.nextLong();
+        this.epoch = -1;
+
+        selectSample(0);
+    }
+
+    /**
+     * @param node the tree being evaluated
+     * @return the fitness over the current subset, scaled to the size of the data set.
+     */
+    @Override
+    public double evaluate(Node node) {
+        return fitnessFunction.evaluate(node, sample, sampleSize) * scale;
+    }
+
+    /**
+     * Moves to the subset of the fitness cases of the generation.
+     * The cases are visited in a random order, so each case is used once before any case is used again.
+     */
+    @Override
+    public void nextGeneration(int generation) {
+        selectSample(generation);
+    }
+
+    /**
+     * @return the fitness function over the full data set, which evaluates the samples too
+     */
+    @Override
+    public FitnessFunction getDelegate() {
+        return fitnessFunction;
+    }
+
+    /**
+     * @return the fitness function over the full data set
+     */
+    @Override
+    public FitnessFunction getFullFitness() {
+        return fitnessFunction;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    @Override
+    public int getEliteCount() {
+        return eliteCount;
+    }
+
+    private void selectSample(int generation) {
+        //an epoch is a pass over all the cases, in the order of its own permutation
+        int samplesPerEpoch = permutation.length / sampleSize;
+        int generationEpoch = generation / samplesPerEpoch;
+
+        if (generationEpoch != epoch) {
+            epoch = generationEpoch;
+            Random random = new Random(seed + epoch * 0x9E3779B97F4A7C15L);
+
+            for (int i = 0; i < permutation.length; i++) {
+                permutation[i] = i;
+            }
+            for (int i = permutation.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = permutation[i];
+                permutation[i] = permutation[j];
+                permutation[j] = t;
+            }
+        }
+
+        System.arraycopy(permutation, (generation % samplesPerEpoch) * sampleSize, sample, 0, sampleSize);
+    }
+}
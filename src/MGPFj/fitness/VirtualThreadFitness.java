@@ -0,0 +1,143 @@
+package MGPFj.fitness;
+
+import MGPFj.chromosome.Node;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Evaluates each node of the population on its own virtual thread. <p/>
+ * This is meant for fitness functions which spend most of their time blocked (eg, calling a simulator process or
+ * reading files), so thousands of evaluations can be in flight with little memory. The number of evaluations in flight
+ * is limited by a semaphore, instead of by the size of a thread pool. <p/>
+ * Virtual threads are available from Java 21. On older JVMs, a cached pool of daemon platform threads is used,
+ * still limited by the same semaphore. <p/>
+ * [NOTE: the wrapped fitness function is called from several threads at once.
+ * CPU bound fitness functions (eg, SymbolicFitness) do not gain anything from this.]
+ */
+public class VirtualThreadFitness implements FitnessWrapper, GenerationAware {
+
+    private final FitnessFunction fitnessFunction;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    /**
+     * @param fitnessFunction the blocking fitness function
+     * @param maxConcurrency maximum number of evaluations in flight
+     */
+    public VirtualThreadFitness(FitnessFunction fitnessFunction, int maxConcurrency) {
+
+        if (maxConcurrency <= 0) {
+            throw new RuntimeException("Concurrency must be positive");
+        }
+
+        this.fitnessFunction = fitnessFunction;
+        this.permits = new Semaphore(maxConcurrency);
+        this.executor = createExecutor();
+    }
+
+    @Override
+    public double evaluate(Node node) {
+        return fitnessFunction.evaluate(node);
+    }
+
+    @Override
+    public void evaluateAll(final List<Node> nodes, final double[] fitness) {
+        final CountDownLatch done = new CountDownLatch(nodes.size());
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        try {
+            for (int i = 0; i < nodes.size(); i++) {
+                permits.acquire();
+
+                final int index = i;
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            fitness[index] = fitnessFunction.evaluate(nodes.get(index));
+                        } catch (Throwable t) {
+                            failure.compareAndSet(null, t);
+                        } finally {
+                            permits.release();
+                            done.countDown();
+                        }
+                    }
+                });
+            }
+
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Evaluation interrupted", e);
+        }
+
+        if (failure.get() != null) {
+            throw new RuntimeException("Evaluation failed", failure.get());
+        }
+    }
+
+    @Override
+    public void nextGeneration(int generation) {
+        if (fitnessFunction instanceof GenerationAware) {
+            ((GenerationAware) fitnessFunction).nextGeneration(generation);
+        }
+    }
+
+    @Override
+    public FitnessFunction getDelegate() {
+        return fitnessFunction;
+    }
+
+    @Override
+    public FitnessFunction getFullFitness() {
+        return fitnessFunction instanceof GenerationAware ? ((GenerationAware) fitnessFunction).getFullFitness() : null;
+    }
+
+    @Override
+    public int getEliteCount() {
+        return fitnessFunction instanceof GenerationAware ? ((GenerationAware) fitnessFunction).getEliteCount() : 0;
+    }
+
+    /**
+     * Stops the threads. The evaluations in flight are finished.
+     */
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * @return true if the evaluations run on virtual threads, false if they run on platform threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            //Executors.newVirtualThreadPerTaskExecutor() is called reflectively, so this compiles on older JDKs.
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            return Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "fitness-evaluator");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+}
@@ -14,10 +14,19 @@ public class GBC implements GeneticOperator {
 
     private final CFG cfg;
     private final int maxDepth;
+    private final Random random;
 
     public GBC(CFG cfg, int maxDepth) {
+        this(cfg, maxDepth, new Random());
+    }
+
+    /**
+     * @param random the random generator of the choices, eg, seeded for reproducible runs
+     */
+    public GBC(CFG cfg, int maxDepth, Random random) {
         this.cfg = cfg;
         this.maxDepth = maxDepth;
+        this.random = random;
     }
 
 
@@ -37,7 +46,7 @@ public class GBC implements GeneticOperator {
         //STEP 2: MGPFj.select one node at random
         while (ntSet.size() > 0) {
 
-            Collections.shuffle(ntSet);
+            Collections.shuffle(ntSet, random);
             Node CN1 = ntSet.get(0);
 
             //STEP 3: start the production set of the parent node, R
@@ -89,7 +98,7 @@ public class GBC implements GeneticOperator {
 
             //STEP 9: Select one node at random
             while (ntSet2.size() > 0) {
-                Collections.shuffle(ntSet2);
+                Collections.shuffle(ntSet2, random);
                 Node CN2 = ntSet2.get(0);
 
 
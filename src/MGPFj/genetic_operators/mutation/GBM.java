@@ -14,12 +14,21 @@ public class GBM implements GeneticOperator {
 
     private final CFG cfg;
     private final int maxDepth;
+    private final Random random;
     private final Map<Production, Integer> productionLengths = new HashMap<Production, Integer>();
     private final Map<NonTerminal, Integer> nonTerminalLengths = new HashMap<NonTerminal, Integer>();
 
     public GBM(CFG cfg, int maxDepth) {
+        this(cfg, maxDepth, new Random());
+    }
+
+    /**
+     * @param random the random generator of the choices, eg, seeded for reproducible runs
+     */
+    public GBM(CFG cfg, int maxDepth, Random random) {
         this.cfg = cfg;
         this.maxDepth = maxDepth;
+        this.random = random;
 
         //finding the length of production rules and non-terminals of the cfg.
         boolean isFinished = false;
@@ -97,7 +106,7 @@ public class GBM implements GeneticOperator {
         //STEP 2: MGPFj.select one node at random
         while (ntSet.size() > 0) {
 
-            Collections.shuffle(ntSet);
+            Collections.shuffle(ntSet, random);
             Node CN1 = ntSet.get(0);
 
             //STEP 3: start the production set of the parent node, R
@@ -145,7 +154,7 @@ public class GBM implements GeneticOperator {
             //STEP 8: randomly choose one symbol, cs from X.
             while (xList.size() > 0) {
 
-                Collections.shuffle(xList);
+                Collections.shuffle(xList, random);
                 NonTerminal cs = xList.get(0);
 
                 //STEP 9: find the mutation length ML
@@ -201,7 +210,7 @@ public class GBM implements GeneticOperator {
 
         //STEP 12 && 13: at this point, there is at-least one possible production that works.
         //randomly choose one
-        Collections.shuffle(productionList);
+        Collections.shuffle(productionList, random);
 
         //container for child Nodes
         List<Node> childNodes = new ArrayList<Node>();
@@ -111,4 +111,16 @@ public final class Production {
 
         return true;
     }
+
+    @Override
+    public int hashCode() {
+        //the symbols are compared by reference in equals, so they are hashed by reference too
+        int h = System.identityHashCode(lhs);
+
+        for (Symbol symbol : rhs) {
+            h = 31 * h + System.identityHashCode(symbol);
+        }
+
+        return h;
+    }
 }
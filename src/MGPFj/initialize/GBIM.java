@@ -13,6 +13,7 @@ public class GBIM implements Initializer {
 
     private final CFG cfg;
     private final int maxDepth;
+    private final Random random;
     private final Map<Production, Integer> productionLengths = new HashMap<Production, Integer>();
     private final Map<NonTerminal, Integer> nonTerminalLengths = new HashMap<NonTerminal, Integer>();
 
@@ -21,9 +22,19 @@ public class GBIM implements Initializer {
      * @param maxDepth maximum allowed depth of the trees
      */
     public GBIM(CFG cfg, int maxDepth) {
+        this(cfg, maxDepth, new Random());
+    }
+
+    /**
+     * @param cfg reference to the cfg
+     * @param maxDepth maximum allowed depth of the trees
+     * @param random the random generator of the choices, eg, seeded for reproducible runs
+     */
+    public GBIM(CFG cfg, int maxDepth, Random random) {
 
         this.cfg = cfg;
         this.maxDepth = maxDepth;
+        this.random = random;
 
         //finding the length of production rules and non-terminals of the cfg.
         boolean isFinished = false;
@@ -84,6 +95,13 @@ public class GBIM implements Initializer {
     }
 
 
+    /**
+     * @return the depth of the shallowest tree of the cfg, ie, the smallest max depth which can generate any tree
+     */
+    public int getMinDepth() {
+        return this.nonTerminalLengths.get(cfg.getStartSymbol());
+    }
+
     @Override
     public List<Node> generate(int currentDepth, int popSize, NonTerminal rootSymbol) {
         List<Node> nodes = new ArrayList<Node>();
@@ -127,7 +145,7 @@ public class GBIM implements Initializer {
         }
 
         //randomly choose one
-        Collections.shuffle(productionList);
+        Collections.shuffle(productionList, random);
 
         //container for child Nodes
         List<Node> childNodes = new ArrayList<Node>();
@@ -18,4 +18,19 @@ public interface Initializer {
      */
     List<Node> generate(int currentDepth, int popSize, NonTerminal rootSymbol);
 
+    /**
+     * Creates the initial population of a run, together with any fitness which is already known for it, so the
+     * engine does not evaluate those individuals again (see {@link PopulationPool}). <p/>
+     * By default the population is generated from the start symbol, and no fitness is known.
+     * @param popSize the number of individuals
+     * @param population receives the individuals
+     * @param knownFitness receives the fitness of each individual, or NaN if it must be evaluated
+     */
+    default void seed(int popSize, List<Node> population, List<Double> knownFitness) {
+        for (Node node : generate(0, popSize, null)) {
+            population.add(node);
+            knownFitness.add(Double.NaN);
+        }
+    }
+
 }
@@ -0,0 +1,111 @@
+package MGPFj.initialize;
+
+import MGPFj.chromosome.Node;
+import MGPFj.fitness.FitnessFunction;
+import MGPFj.grammar.CFG;
+import MGPFj.grammar.NonTerminal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A random population which is generated and evaluated once, and shared as the initial population of many runs
+ * on the same grammar and fitness function (eg, the inner runs of {@link MGPFj.meta_gp.MetaGpLevel1}). The runs
+ * which start from the pool skip the initialization and the evaluation of their first generation. <p/>
+ * The trees are shared, not copied: the genetic operators copy their parents before changing them, so a tree is
+ * never modified once it is in a population, and each run gets its own copies only for the trees it evolves. <p/>
+ * Every run takes the trees in the same order, so the runs being compared start from the same population. <p/>
+ * [NOTE: the fitness of the pool is only valid for the fitness function given here. Do not use the pool with
+ * another fitness function, or with a subsampled one.]
+ */
+public class PopulationPool {
+
+    private final CFG cfg;
+    private final FitnessFunction fitnessFunction;
+    private final int maxDepth;
+    private final int size;
+
+    private List<Node> nodes;
+    private double[] fitness;
+    private int[] depths;
+
+    /**
+     * @param cfg the grammar
+     * @param fitnessFunction the fitness function of the runs
+     * @param maxDepth the max depth of the trees of the pool. Runs with a smaller max depth use only the trees
+     *                 which fit in it.
+     * @param size the number of trees of the pool
+     */
+    public PopulationPool(CFG cfg, FitnessFunction fitnessFunction, int maxDepth, int size) {
+        this.cfg = cfg;
+        this.fitnessFunction = fitnessFunction;
+        this.maxDepth = maxDepth;
+        this.size = size;
+    }
+
+    /**
+     * @param maxDepth the max depth of the run
+     * @return an initializer which seeds a run from the pool. When the pool has too few trees which fit in
+     * maxDepth, the rest is generated by {@link GBIM}, and evaluated by the run.
+     */
+    public Initializer createInitializer(final int maxDepth) {
+        final GBIM gbim = new GBIM(cfg, maxDepth);
+
+        return new Initializer() {
+            @Override
+            public List<Node> generate(int currentDepth, int popSize, NonTerminal rootSymbol) {
+                return gbim.generate(currentDepth, popSize, rootSymbol);
+            }
+
+            @Override
+            public void seed(int popSize, List<Node> population, List<Double> knownFitness) {
+                take(maxDepth, popSize, population, knownFitness);
+
+                if (population.size() < popSize) {
+                    for (Node node : gbim.generate(0, popSize - population.size(), null)) {
+                        population.add(node);
+                        knownFitness.add(Double.NaN);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * @return the trees of the pool, generated and evaluated at the first call
+     */
+    public synchronized List<Node> getNodes() {
+        fill();
+        return Collections.unmodifiableList(nodes);
+    }
+
+    private synchronized void take(int maxDepth, int count, List<Node> population, List<Double> knownFitness) {
+        fill();
+
+        for (int i = 0; i < nodes.size() && population.size() < count; i++) {
+            if (depths[i] <= maxDepth) {
+                population.add(nodes.get(i));
+                knownFitness.add(fitness[i]);
+            }
+        }
+    }
+
+    private void fill() {
+        if (nodes != null) return;
+
+        List<Node> generated = new GBIM(cfg, maxDepth).generate(0, size, null);
+        double[] evaluated = new double[generated.size()];
+        fitnessFunction.evaluateAll(generated, evaluated);
+
+        //the depths are kept, since each run filters the trees by its own max depth
+        int[] treeDepths = new int[generated.size()];
+        for (int i = 0; i < treeDepths.length; i++) {
+            treeDepths[i] = generated.get(i).getTreeDepth();
+        }
+
+        nodes = new ArrayList<Node>(generated);
+        fitness = evaluated;
+        depths = treeDepths;
+    }
+}
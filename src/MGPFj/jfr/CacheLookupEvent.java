@@ -0,0 +1,25 @@
+package MGPFj.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One lookup in a {@link MGPFj.fitness.PersistentFitnessCache}.
+ */
+@Name("MGPFj.CacheLookup")
+@Label("Fitness Cache Lookup")
+@Category("MGPFj")
+@Enabled(false)
+@StackTrace(false)
+class CacheLookupEvent extends Event {
+
+    @Label("Node Count")
+    int nodeCount;
+
+    @Label("Hit")
+    boolean hit;
+}
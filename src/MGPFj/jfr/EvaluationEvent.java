@@ -0,0 +1,28 @@
+package MGPFj.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One batch of trees evaluated together by the fitness function of an engine.
+ */
+@Name("MGPFj.Evaluation")
+@Label("Evaluation Batch")
+@Category("MGPFj")
+@Description("A batch of trees evaluated by the fitness function")
+@Enabled(false)
+@StackTrace(false)
+class EvaluationEvent extends Event {
+
+    @Label("Batch Size")
+    int batchSize;
+
+    @Label("Node Count")
+    @Description("Nodes of all the trees of the batch")
+    long nodeCount;
+}
@@ -0,0 +1,37 @@
+package MGPFj.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One generation of a {@link MGPFj.engine.DefaultLazyEngine}, from its start until the offspring are created.
+ */
+@Name("MGPFj.Generation")
+@Label("Generation")
+@Category("MGPFj")
+@Description("One generation of the evolution loop")
+@Enabled(false)
+@StackTrace(false)
+class GenerationEvent extends Event {
+
+    @Label("Generation")
+    int generation;
+
+    @Label("Population Size")
+    int populationSize;
+
+    @Label("Evaluated")
+    @Description("Individuals evaluated in the generation, the others had a known fitness")
+    int evaluated;
+
+    @Label("Best Fitness")
+    double bestFitness;
+
+    @Label("Best Node Count")
+    int bestNodeCount;
+}
@@ -0,0 +1,97 @@
+package MGPFj.jfr;
+
+import MGPFj.genetic_operators.GeneticOperator;
+import MGPFj.utils.Tracer;
+
+/**
+ * Records the events of the evolution loop as Java Flight Recorder events, so the generations, evaluations,
+ * genetic operators and cache lookups can be lined up with the GC pauses and the CPU samples of a recording. <p/>
+ * The events are in the MGPFj category, and are disabled by default. They are enabled in a .jfc settings file
+ * (eg, &lt;event name="MGPFj.Generation"&gt;&lt;setting name="enabled"&gt;true&lt;/setting&gt;&lt;/event&gt;, passed
+ * to -XX:StartFlightRecording=settings=... or to jcmd [pid] JFR.start), or with jdk.jfr.Recording#enable. <p/>
+ * A disabled event costs only the allocation of the event object, which is dropped at once. <p/>
+ * [NOTE: this package needs the jdk.jfr module, so it is compiled against Java 11 or newer (the rest of MGPFj is
+ * still Java 8). It runs on any JVM which has jdk.jfr, including 8u272 and newer.]
+ */
+public class JfrTracer extends Tracer {
+
+    /**
+     * Installs a JfrTracer as the tracer of all the engines of the JVM.
+     */
+    public static void install() {
+        Tracer.install(new JfrTracer());
+    }
+
+    @Override
+    public Object beginGeneration() {
+        return begin(new GenerationEvent());
+    }
+
+    @Override
+    public void endGeneration(Object token, int generation, int populationSize, int evaluated, double bestFitness,
+                              int bestNodeCount) {
+        GenerationEvent event = (GenerationEvent) token;
+        event.generation = generation;
+        event.populationSize = populationSize;
+        event.evaluated = evaluated;
+        event.bestFitness = bestFitness;
+        event.bestNodeCount = bestNodeCount;
+        event.commit();
+    }
+
+    @Override
+    public Object beginEvaluation() {
+        return begin(new EvaluationEvent());
+    }
+
+    @Override
+    public void endEvaluation(Object token, int batchSize, long nodeCount) {
+        EvaluationEvent event = (EvaluationEvent) token;
+        event.batchSize = batchSize;
+        event.nodeCount = nodeCount;
+        event.commit();
+    }
+
+    @Override
+    public Object beginOperator() {
+        return begin(new OperatorEvent());
+    }
+
+    @Override
+    public void endOperator(Object token, GeneticOperator operator, int parentNodeCount, int offspringCount,
+                            int offspringNodeCount, boolean retry, String outcome) {
+        OperatorEvent event = (OperatorEvent) token;
+        event.operator = operator.getClass().getSimpleName();
+        event.parentNodeCount = parentNodeCount;
+        event.offspringCount = offspringCount;
+        event.offspringNodeCount = offspringNodeCount;
+        event.retry = retry;
+        event.outcome = outcome;
+        event.commit();
+    }
+
+    @Override
+    public Object beginCacheLookup() {
+        return begin(new CacheLookupEvent());
+    }
+
+    @Override
+    public void endCacheLookup(Object token, int nodeCount, boolean hit) {
+        CacheLookupEvent event = (CacheLookupEvent) token;
+        event.nodeCount = nodeCount;
+        event.hit = hit;
+        event.commit();
+    }
+
+    /**
+     * @return the started event, or null if the event is disabled, so the caller skips computing its fields
+     */
+    private static jdk.jfr.Event begin(jdk.jfr.Event event) {
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.begin();
+        return event;
+    }
+}
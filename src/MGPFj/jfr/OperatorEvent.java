@@ -0,0 +1,42 @@
+package MGPFj.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One attempt of a genetic operator (eg, GBC or GBM), including the failed ones.
+ */
+@Name("MGPFj.Operator")
+@Label("Genetic Operator")
+@Category("MGPFj")
+@Description("One attempt of a genetic operator")
+@Enabled(false)
+@StackTrace(false)
+class OperatorEvent extends Event {
+
+    @Label("Operator")
+    String operator;
+
+    @Label("Parent Node Count")
+    int parentNodeCount;
+
+    @Label("Offspring")
+    @Description("Offspring created, 0 if the operator failed")
+    int offspringCount;
+
+    @Label("Offspring Node Count")
+    int offspringNodeCount;
+
+    @Label("Retry")
+    @Description("The attempt retries a slot whose previous attempt failed")
+    boolean retry;
+
+    @Label("Outcome")
+    @Description("created, retried or fallback")
+    String outcome;
+}
@@ -0,0 +1,78 @@
+package MGPFj.meta_gp;
+
+import MGPFj.chromosome.Node;
+
+/**
+ * The parameters of a {@link MGPFj.engine.DefaultLazyEngine} which the meta level evolves.
+ */
+public class GpParameters {
+
+    private final int popSize;
+    private final int maxDepth;
+    private final int reproductionProbability;
+    private final int crossoverProbability;
+    private final int mutationProbability;
+
+    public GpParameters(int popSize, int maxDepth, int reproductionProbability, int crossoverProbability,
+                        int mutationProbability) {
+        this.popSize = popSize;
+        this.maxDepth = maxDepth;
+        this.reproductionProbability = reproductionProbability;
+        this.crossoverProbability = crossoverProbability;
+        this.mutationProbability = mutationProbability;
+    }
+
+    /**
+     * Reads the parameters from a tree of the meta grammar. Each value of the tree is clamped to its range,
+     * so every tree gives valid parameters. The population size is counted in steps of popSizeStep.
+     * @param node a tree of {@link MetaGpLevel1#getMetaCFG()}
+     */
+    static GpParameters decode(Node node, int minPopSize, int maxPopSize, int popSizeStep, int minDepth,
+                               int maxDepth) {
+        int[] values = (int[]) node.evaluate(null);
+
+        return new GpParameters(
+                clamp(values[0] * popSizeStep, minPopSize, maxPopSize),
+                clamp(values[1], minDepth, maxDepth),
+                clamp(values[2], 0, 100),
+                clamp(values[3], 0, 100),
+                clamp(values[4], 0, 100));
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public int getPopSize() {
+        return popSize;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getReproductionProbability() {
+        return reproductionProbability;
+    }
+
+    public int getCrossoverProbability() {
+        return crossoverProbability;
+    }
+
+    public int getMutationProbability() {
+        return mutationProbability;
+    }
+
+    /**
+     * @return whether at least one genetic operator can be chosen
+     */
+    public boolean hasOperators() {
+        return reproductionProbability + crossoverProbability + mutationProbability > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "popSize: " + popSize + ", maxDepth: " + maxDepth + ", probabilities: " + reproductionProbability
+                + "/" + crossoverProbability + "/" + mutationProbability;
+    }
+}
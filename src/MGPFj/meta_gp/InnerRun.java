@@ -0,0 +1,96 @@
+package MGPFj.meta_gp;
+
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.engine.DefaultLazyEngine;
+import MGPFj.engine.EvolutionState;
+
+/**
+ * The inner run which scores one setting of the meta level. It is advanced in steps, and keeps its
+ * {@link EvolutionState} between them, so the race of {@link MetaGpLevel1} can stop it after any step.
+ */
+class InnerRun {
+    //the tie-break moves the score by at most this many ulps of the fitness
+    private static final int TIE_BREAK_ULPS = 1024;
+
+    private final DefaultLazyEngine.DefaultEngineLazyCreator creator;
+    private DefaultLazyEngine engine;
+    private EvolutionState state;
+    private double bestFitness = Double.POSITIVE_INFINITY;
+    private boolean failed;
+    private boolean stopped;
+    private double stoppedScore;
+
+    /**
+     * @param creator the creator of the inner engine, or null if the setting cannot run (eg, all the
+     *                probabilities are 0, or the max depth is too small for the grammar of the problem)
+     */
+    InnerRun(DefaultLazyEngine.DefaultEngineLazyCreator creator) {
+        this.creator = creator;
+        this.failed = creator == null;
+    }
+
+    /**
+     * Runs the generations before untilGeneration, unless the run already finished or was stopped. <p/>
+     * [NOTE: the exceptions of the inner engine (eg, of the fitness function) are not caught, they fail the
+     * meta run, so a broken problem is not mistaken for bad parameters.]
+     */
+    void advance(int untilGeneration) {
+        if (!isActive()) return;
+
+        if (engine == null) {
+            engine = creator.finish();
+            state = engine.createState();
+        }
+
+        RankedCandidate[] candidates = engine.run(state, untilGeneration - state.getGeneration(), false);
+        bestFitness = Math.min(bestFitness, candidates[0].getFitness());
+    }
+
+    /**
+     * @return true if the run can still be advanced
+     */
+    boolean isActive() {
+        return !failed && !stopped && (state == null || !state.isFinished());
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Ends the run for good. Its population is released, and it is scored as if it spent more than its whole
+     * budget, so it ranks below the runs which went on.
+     */
+    void stop() {
+        stoppedScore = tieBreak(bestFitness, TIE_BREAK_ULPS);
+        stopped = true;
+        state = null;
+        engine = null;
+    }
+
+    /**
+     * The runs are ranked by their best fitness, and the runs with the same fitness by their used evaluations.
+     * @return the best fitness of the run, moved towards the worse side by less than TIE_BREAK_ULPS ulps, in
+     * proportion to the used fraction of the evaluation budget. Lower is better. <p/>
+     * [NOTE: the tie-break does not depend on the scale of the fitness function. It can only reorder runs whose
+     * fitness are within TIE_BREAK_ULPS ulps of each other, which is far below any meaningful fitness step.]
+     */
+    double getScore(long maxEvaluations) {
+        if (failed) return Double.POSITIVE_INFINITY;
+        if (stopped) return stoppedScore;
+
+        long evaluations = Math.min(state.getEvaluations(), maxEvaluations);
+        return tieBreak(bestFitness, (int) (evaluations * (TIE_BREAK_ULPS - 1) / maxEvaluations));
+    }
+
+    /**
+     * @return the fitness moved by the given number of ulps towards positive infinity
+     */
+    private static double tieBreak(double fitness, int ulps) {
+        double result = fitness;
+        for (int i = 0; i < ulps; i++) {
+            result = Math.nextUp(result);
+        }
+        return result;
+    }
+}
@@ -1,72 +1,384 @@
 package MGPFj.meta_gp;
 
 
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.engine.DefaultLazyEngine;
+import MGPFj.fitness.FitnessFunction;
 import MGPFj.grammar.CFG;
 import MGPFj.grammar.NonTerminal;
 import MGPFj.grammar.Production;
+import MGPFj.initialize.GBIM;
+import MGPFj.initialize.PopulationPool;
 import MGPFj.terminal.constant.Constant;
 import MGPFj.terminal.operation.Operation;
-import MGPFj.terminal.variable.Variable;
 import MGPFj.utils.Util;
 import symbolic_regression_test.Minus;
-import symbolic_regression_test.Multiply;
 import symbolic_regression_test.Plus;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * MetaGP evolves some of the parameters of GP,
- * ever each iteration of the main Engine. these values are used to run the GP Engine.
- *
- *
- * The steps are:
- *
- *
+ * MetaGP evolves some of the parameters of GP (the population size, the max depth and the probabilities of the
+ * genetic operators, see {@link GpParameters}) for a problem, given as a CFG and a fitness function. <p/>
+ * The steps are: <p/>
+ * 1. The meta level is a {@link DefaultLazyEngine} over the meta grammar, where each tree encodes one setting of
+ * the parameters (see {@link #getMetaCFG()}). <p/>
+ * 2. Each setting is scored by an inner run of a DefaultLazyEngine on the problem, limited by a budget of
+ * generations, evaluations and time. The settings are ranked by the best fitness of their inner run, and the
+ * settings which reach the same fitness by their used evaluations, so the cheapest one wins (see
+ * {@link InnerRun#getScore}). The settings whose max depth is too small for the grammar of the problem are
+ * ranked last without running. <p/>
+ * 3. The inner runs of a meta generation run concurrently on a shared worker pool, one run per worker, and stop as
+ * soon as they reach the max fitness or spend their budget. With {@link #setSuccessiveHalving(int)}, they race, and
+ * the worse half is stopped at each rung. With {@link #setWarmStart(boolean)}, they all start from one shared
+ * population, which is evaluated only once. <p/>
+ * [NOTE: the fitness function of the problem is called from several threads at once.]
  */
 public class MetaGpLevel1 {
+    private static final int META_MAX_DEPTH = 6;
+
     private final CFG cfg;
+    private final CFG problemCfg;
+    private final FitnessFunction fitnessFunction;
+    private final ExecutorService executor;
+    private final int problemMinDepth;
+
+    private int minPopSize = 20;
+    private int maxPopSize = 1000;
+    private int popSizeStep = 10;
+    private int minDepth = 2;
+    private int maxDepth = 10;
+    private int innerGenerations = 50;
+    private long maxEvaluations = 20000;
+    private long maxMillis = 10000;
+    private int firstRungGenerations;
+    private boolean warmStart;
+    private PopulationPool pool;
+
+    private double bestScore = Double.NaN;
+
+    /**
+     * @param problemCfg the grammar of the problem
+     * @param fitnessFunction the fitness function of the problem
+     * @param threads number of inner runs at the same time
+     */
+    public MetaGpLevel1(CFG problemCfg, FitnessFunction fitnessFunction, int threads) {
+
+        if (threads <= 0) {
+            throw new RuntimeException("Thread count must be positive");
+        }
 
-    public MetaGpLevel1() {
         this.cfg = createMetaCFG();
+        this.problemCfg = problemCfg;
+        this.fitnessFunction = fitnessFunction;
+        this.problemMinDepth = new GBIM(problemCfg, 0).getMinDepth();
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "meta-gp-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Uses one inner run per available processor.
+     */
+    public MetaGpLevel1(CFG problemCfg, FitnessFunction fitnessFunction) {
+        this(problemCfg, fitnessFunction, Runtime.getRuntime().availableProcessors());
     }
 
+    /**
+     * The meta grammar: params E E E E E, where params is a {@link ParameterSet} and each E is a sum of
+     * integer constants, in the order population size (in steps), max depth, reproduction, crossover and
+     * mutation probability.
+     */
     private static CFG createMetaCFG() {
 
         Operation plus = new Plus();
         Operation minus = new Minus();
+        Operation params = new ParameterSet();
 
         Constant[] c = Util.createIntegerConstants(0, 10);
 
-        Variable[] v = Variable.createVariables("v0", "v1", "v2");
-
+        NonTerminal s = new NonTerminal("S");
         NonTerminal e = new NonTerminal("E");
         NonTerminal f = new NonTerminal("F");
 
+        Production p0 = new Production(s, params, e, e, e, e, e);
         Production p1 = new Production(e, e, plus, e);
         Production p2 = new Production(e, e, minus, e);
         Production p3 = new Production(e, e, plus, f);
         Production p4 = new Production(e, f);
-        Production[] p5 = Production.createVariableProductions(f, v);
-        Production[] p6 = Production.createConstantProductions(f, c);
+        Production[] p5 = Production.createConstantProductions(f, c);
 
 
         CFG cfg = CFG.startBuilding()
-                .addNonTerminals(e, f)
-                .addTerminals(v)
+                .addNonTerminals(s, e, f)
                 .addTerminals(c)
-                .addTerminals(minus, plus)
-                .addProductions(p1,p2, p3, p4)
+                .addTerminals(params, minus, plus)
+                .addProductions(p0, p1, p2, p3, p4)
                 .addProductions(p5)
-                .addProductions(p6)
-                .setStartSymbol(e)
+                .setStartSymbol(s)
                 .build();
 
         return cfg;
     }
 
-    public List<Object> evolve(List<Object> args) {
-        List<Object> results = new ArrayList<Object>();
-        return results;
+    /**
+     * @param min the smallest population size
+     * @param max the largest population size
+     * @param step the population size grows by this much for each unit of the evolved value
+     */
+    public MetaGpLevel1 setPopSizeRange(int min, int max, int step) {
+
+        if (min <= 1 || min > max || step <= 0) {
+            throw new RuntimeException("Invalid population size range");
+        }
+
+        this.minPopSize = min;
+        this.maxPopSize = max;
+        this.popSizeStep = step;
+        this.pool = null;
+        return this;
+    }
+
+    public MetaGpLevel1 setMaxDepthRange(int min, int max) {
+
+        if (min <= 0 || min > max) {
+            throw new RuntimeException("Invalid max depth range");
+        }
+
+        this.minDepth = min;
+        this.maxDepth = max;
+        this.pool = null;
+        return this;
+    }
+
+    /**
+     * The budget of each inner run. A run stops at the end of the generation in which it spends any of them.
+     * @param generations number of generations
+     * @param maxEvaluations number of evaluations, must be positive
+     * @param maxMillis wall time in milliseconds, or 0 for no limit
+     */
+    public MetaGpLevel1 setInnerBudget(int generations, long maxEvaluations, long maxMillis) {
+
+        if (generations < 0 || maxEvaluations <= 0 || maxMillis < 0) {
+            throw new RuntimeException("Invalid inner budget");
+        }
+
+        this.innerGenerations = generations;
+        this.maxEvaluations = maxEvaluations;
+        this.maxMillis = maxMillis;
+        return this;
+    }
+
+    /**
+     * Scores the settings of each meta generation by successive halving, instead of a full inner run each: all
+     * the inner runs are paused after the first rung of generations, the worse half is stopped, and the others
+     * continue for twice as many generations, and so on. Most of the inner generations go to the promising
+     * settings. The default is 0, full inner runs.
+     * @param firstRungGenerations number of inner generations before the first halving, or 0 to disable it
+     */
+    public MetaGpLevel1 setSuccessiveHalving(int firstRungGenerations) {
+
+        if (firstRungGenerations < 0) {
+            throw new RuntimeException("Rung generations must not be negative");
+        }
+
+        this.firstRungGenerations = firstRungGenerations;
+        return this;
+    }
+
+    /**
+     * Starts every inner run from a shared {@link PopulationPool} of the problem, generated and evaluated once, with
+     * the largest population size and max depth of the ranges. The inner runs skip their initialization and the
+     * evaluation of their first generation, and the settings are compared on the same initial population.
+     * @param warmStart whether to use the pool
+     */
+    public MetaGpLevel1 setWarmStart(boolean warmStart) {
+        this.warmStart = warmStart;
+        return this;
+    }
+
+    /**
+     * Runs the meta level.
+     * @param metaPopSize number of parameter settings in each meta generation
+     * @param metaGenerations number of meta generations
+     * @param loggerEnabled prints a summary of each meta generation
+     * @return the best parameters found
+     */
+    public GpParameters evolve(int metaPopSize, int metaGenerations, boolean loggerEnabled) {
+
+        if (warmStart && pool == null) {
+            pool = new PopulationPool(problemCfg, fitnessFunction, maxDepth, maxPopSize);
+        }
+
+        //the best setting of each meta generation is kept, so it is not lost to a noisy inner run
+        DefaultLazyEngine metaEngine = DefaultLazyEngine.start(cfg, new InnerRunFitness(), META_MAX_DEPTH,
+                metaPopSize, metaGenerations)
+                .setEliteCount(1)
+                .finish();
+
+        RankedCandidate[] candidates = metaEngine.run(loggerEnabled);
+
+        bestScore = candidates[0].getFitness();
+        return decode(candidates[0].getNode());
+    }
+
+    /**
+     * @param parameters the parameters
+     * @return a creator of an engine for the problem with these parameters, and the inner number of generations
+     */
+    public DefaultLazyEngine.DefaultEngineLazyCreator createEngine(GpParameters parameters) {
+        DefaultLazyEngine.DefaultEngineLazyCreator creator = DefaultLazyEngine.start(problemCfg, fitnessFunction,
+                parameters.getMaxDepth(), parameters.getPopSize(), innerGenerations)
+                .setDefaultProbabilities(parameters.getReproductionProbability(),
+                        parameters.getCrossoverProbability(), parameters.getMutationProbability());
+
+        if (warmStart && pool != null) {
+            creator.setInitializer(pool.createInitializer(parameters.getMaxDepth()));
+        }
+
+        return creator;
+    }
+
+    /**
+     * @return the score of the parameters returned by the last {@link #evolve}, lower is better
+     */
+    public double getBestScore() {
+        return bestScore;
+    }
+
+    public CFG getMetaCFG() {
+        return cfg;
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private GpParameters decode(Node node) {
+        return GpParameters.decode(node, minPopSize, maxPopSize, popSizeStep, minDepth, maxDepth);
+    }
+
+    /**
+     * Scores the settings of a meta generation, racing their inner runs. All the runs are advanced to the first
+     * rung, then the worse half is stopped and the others continue from their paused state, for twice as many
+     * generations, until the last generation.
+     */
+    private double[] race(List<GpParameters> settings) {
+        List<InnerRun> runs = new ArrayList<InnerRun>(settings.size());
+        for (GpParameters parameters : settings) {
+            runs.add(new InnerRun(parameters.hasOperators() && parameters.getMaxDepth() >= problemMinDepth
+                    ? createEngine(parameters).setTerminateOnMaxFitness(true).setBudget(maxEvaluations, maxMillis)
+                    : null));
+        }
+
+        //the engine evaluates the generations 0 to innerGenerations
+        int lastGeneration = innerGenerations + 1;
+        int rungGeneration = firstRungGenerations > 0 ? Math.min(firstRungGenerations, lastGeneration) : lastGeneration;
+        List<InnerRun> racing = new ArrayList<InnerRun>(runs);
+
+        while (true) {
+            advanceAll(racing, rungGeneration);
+
+            if (rungGeneration >= lastGeneration) break;
+
+            //the worse half is stopped
+            List<InnerRun> survivors = new ArrayList<InnerRun>();
+            for (InnerRun run : racing) {
+                if (!run.isFailed()) {
+                    survivors.add(run);
+                }
+            }
+            Collections.sort(survivors, new Comparator<InnerRun>() {
+                @Override
+                public int compare(InnerRun a, InnerRun b) {
+                    return Double.compare(a.getScore(maxEvaluations), b.getScore(maxEvaluations));
+                }
+            });
+
+            int survivorCount = (survivors.size() + 1) / 2;
+            for (InnerRun run : survivors.subList(survivorCount, survivors.size())) {
+                run.stop();
+            }
+            racing = new ArrayList<InnerRun>(survivors.subList(0, survivorCount));
+
+            rungGeneration = (int) Math.min(2L * rungGeneration, lastGeneration);
+        }
+
+        double[] scores = new double[runs.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = runs.get(i).getScore(maxEvaluations);
+        }
+        return scores;
+    }
+
+    /**
+     * Advances the active runs concurrently on the worker pool, and waits for all of them.
+     */
+    private void advanceAll(List<InnerRun> runs, final int untilGeneration) {
+        List<Future<?>> futures = new ArrayList<Future<?>>(runs.size());
+
+        for (final InnerRun run : runs) {
+            if (!run.isActive()) continue;
+
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    run.advance(untilGeneration);
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Meta evaluation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Inner run failed", e.getCause());
+        }
+    }
+
+    /**
+     * The fitness of the meta level. The settings of a meta generation are scored together, see {@link #race}.
+     */
+    private class InnerRunFitness implements FitnessFunction {
+
+        @Override
+        public double evaluate(Node node) {
+            return race(Collections.singletonList(decode(node)))[0];
+        }
+
+        @Override
+        public void evaluateAll(List<Node> nodes, double[] out) {
+            List<GpParameters> settings = new ArrayList<GpParameters>(nodes.size());
+            for (Node node : nodes) {
+                settings.add(decode(node));
+            }
+
+            double[] scores = race(settings);
+            System.arraycopy(scores, 0, out, 0, scores.length);
+        }
     }
 }
@@ -0,0 +1,45 @@
+package MGPFj.meta_gp;
+
+import MGPFj.chromosome.Node;
+import MGPFj.holder.Arguments;
+import MGPFj.holder.Assignments;
+import MGPFj.terminal.operation.Operation;
+
+/**
+ * The root operation of the meta grammar. It evaluates each of its arguments to an integer, and returns them
+ * together as an int[], which {@link GpParameters#decode} turns into the parameters of a GP run.
+ */
+class ParameterSet implements Operation {
+
+    @Override
+    public String getSymbolName() {
+        return "params";
+    }
+
+    @Override
+    public Object evaluate(Arguments arguments, Assignments assignments) {
+        int[] values = new int[arguments.size()];
+
+        for (int i = 0; i < values.length; i++) {
+            Object value = arguments.getArg(i).evaluate(assignments);
+
+            if (!(value instanceof Integer)) {
+                throw new RuntimeException("Evaluation failed");
+            }
+
+            values[i] = (Integer) value;
+        }
+
+        return values;
+    }
+
+    @Override
+    public Node simplify(Arguments arguments) {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return getSymbolName();
+    }
+}
@@ -2,6 +2,7 @@ package MGPFj.select;
 
 
 import MGPFj.chromosome.Node;
+import MGPFj.chromosome.RankedCandidate;
 
 /**
  * Select a ranked candidate from the pool
@@ -13,4 +14,14 @@ public interface Selector {
      * @return
      */
     Node next();
+
+    /**
+     * Selects the next candidate from the pool, along with its known fitness. <p/>
+     * [NOTE: the default wraps {@link #next()} with an unknown (NaN) fitness, so the offspring copied from it are
+     * evaluated again. Selectors which know the fitness of their candidates should override it.]
+     * @return
+     */
+    default RankedCandidate nextCandidate() {
+        return RankedCandidate.create(next(), Double.NaN);
+    }
 }
@@ -10,9 +10,19 @@ public class TournamentSelector implements Selector {
     private final RankedCandidate[] candidates;
     private final int size;
     private final double sum;
+    private final Random random;
 
     public TournamentSelector(RankedCandidate[] candidates) {
+        this(candidates, new Random());
+    }
+
+    /**
+     * @param candidates the candidates, sorted from the best to the worst
+     * @param random the random generator of the selection, eg, the one of the run
+     */
+    public TournamentSelector(RankedCandidate[] candidates, Random random) {
         this.candidates = candidates;
+        this.random = random;
         this.size = candidates.length;
         long s = 0;
         for (int i = 1; i <= size; i++) {
@@ -24,17 +34,21 @@ public class TournamentSelector implements Selector {
 
     @Override
     public Node next() {
-        final double r = new Random().nextDouble(); //0.0 <= r < 1.0
+        return nextCandidate().getNode();
+    }
+
+    @Override
+    public RankedCandidate nextCandidate() {
+        final double r = random.nextDouble(); //0.0 <= r < 1.0
         double p = 0;
         for (int i = 0; i < this.size; i++) {
             p += (this.size - i) / this.sum;
             if (r < p) {
-                RankedCandidate c = this.candidates[i];
-                return c.getNode();
+                return this.candidates[i];
             }
         }
 
         // should only get here if rounding error - default to selecting the best candidate
-        return candidates[0].getNode();
+        return candidates[0];
     }
 }
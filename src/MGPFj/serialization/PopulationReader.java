@@ -0,0 +1,154 @@
+package MGPFj.serialization;
+
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.RankedCandidate;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the candidates written by a {@link PopulationWriter} from a channel, one at a time. <p/>
+ * The channel is read in chunks into a direct buffer. A tree which is cut by the end of a chunk is
+ * read again after the next chunk is appended.
+ */
+public class PopulationReader implements Closeable {
+
+    private final TreeCodec codec;
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+
+    private Node node;
+    private double fitness;
+    private boolean finished;
+
+    /**
+     * Reads the header.
+     * @param codec the codec of the CFG
+     * @param channel the channel. It is closed by {@link #close()}.
+     * @throws IOException if reading fails, or the stream was written with another CFG
+     */
+    public PopulationReader(TreeCodec codec, ReadableByteChannel channel) throws IOException {
+        this.codec = codec;
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(1 << 16);
+        buffer.flip();
+
+        while (buffer.remaining() < 4 + 1 + 8) {
+            if (!fill()) {
+                throw new EOFException("Not a population stream");
+            }
+        }
+
+        if (buffer.getInt() != PopulationWriter.MAGIC) {
+            throw new IOException("Not a population stream");
+        }
+        if (buffer.get() != PopulationWriter.VERSION) {
+            throw new IOException("Unsupported population stream version");
+        }
+        if (buffer.getLong() != codec.getFingerprint()) {
+            throw new IOException("The population was written with another CFG");
+        }
+    }
+
+    /**
+     * Reads the next candidate.
+     * @return false at the end of the stream
+     * @throws IOException if reading fails, or the stream is cut before the end marker
+     */
+    public boolean next() throws IOException {
+        if (finished) {
+            return false;
+        }
+
+        while (true) {
+            buffer.mark();
+            try {
+                byte type = buffer.get();
+
+                if (type == PopulationWriter.END) {
+                    finished = true;
+                    node = null;
+                    return false;
+                }
+
+                if (type != PopulationWriter.CANDIDATE) {
+                    throw new IOException("Corrupted population stream");
+                }
+
+                fitness = buffer.getDouble();
+                node = codec.read(buffer);
+                return true;
+            } catch (BufferUnderflowException e) {
+                //the candidate continues in the next chunk
+                buffer.reset();
+                if (!fill()) {
+                    throw new EOFException("Unexpected end of population stream");
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the tree of the current candidate
+     */
+    public Node getNode() {
+        return node;
+    }
+
+    /**
+     * @return the fitness of the current candidate, or NaN if it was not known
+     */
+    public double getFitness() {
+        return fitness;
+    }
+
+    /**
+     * Reads the rest of the stream.
+     * @return the candidates, in the order they were written
+     * @throws IOException if reading fails
+     */
+    public RankedCandidate[] readAll() throws IOException {
+        List<RankedCandidate> candidates = new ArrayList<RankedCandidate>();
+
+        while (next()) {
+            candidates.add(RankedCandidate.create(node, fitness));
+        }
+
+        return candidates.toArray(new RankedCandidate[0]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Appends the next chunk of the channel to the unread bytes.
+     * @return false at the end of the channel
+     */
+    private boolean fill() throws IOException {
+        buffer.compact();
+
+        if (!buffer.hasRemaining()) {
+            //a single candidate is larger than the buffer
+            ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+
+        buffer.flip();
+        return read > 0;
+    }
+}
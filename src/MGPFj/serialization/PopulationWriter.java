@@ -0,0 +1,121 @@
+package MGPFj.serialization;
+
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.RankedCandidate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Streams candidates with their fitness to a channel (eg, a file or a socket), in the format read by
+ * {@link PopulationReader}. <p/>
+ * The stream starts with a header holding the fingerprint of the CFG. Each candidate is its fitness and its tree
+ * (see {@link TreeCodec}), and an end marker closes the stream. The candidates are collected in a direct buffer,
+ * which is written to the channel when it is full, so the population is never held in memory as bytes.
+ */
+public class PopulationWriter implements Closeable {
+
+    static final int MAGIC = 0x4D475054;
+    static final byte VERSION = 1;
+    static final byte CANDIDATE = 1;
+    static final byte END = 0;
+
+    private final TreeCodec codec;
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer;
+    private long count;
+
+    /**
+     * Writes the header.
+     * @param codec the codec of the CFG
+     * @param channel the channel. It is closed by {@link #close()}.
+     * @throws IOException if writing fails
+     */
+    public PopulationWriter(TreeCodec codec, WritableByteChannel channel) throws IOException {
+        this.codec = codec;
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(1 << 16);
+
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(codec.getFingerprint());
+    }
+
+    /**
+     * @param node the tree
+     * @param fitness the fitness, or NaN if it is not known
+     * @throws IOException if writing fails
+     */
+    public void write(Node node, double fitness) throws IOException {
+        int size = 1 + 8 + codec.getEncodedSize(node);
+
+        if (size > buffer.remaining()) {
+            flush();
+
+            if (size > buffer.capacity()) {
+                buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(size) << 1);
+            }
+        }
+
+        buffer.put(CANDIDATE);
+        buffer.putDouble(fitness);
+        codec.write(node, buffer);
+        count++;
+    }
+
+    /**
+     * @param candidate the candidate
+     * @throws IOException if writing fails
+     */
+    public void write(RankedCandidate candidate) throws IOException {
+        write(candidate.getNode(), candidate.getFitness());
+    }
+
+    /**
+     * @param candidates the candidates, in the order they are read back
+     * @throws IOException if writing fails
+     */
+    public void writeAll(RankedCandidate[] candidates) throws IOException {
+        for (RankedCandidate candidate : candidates) {
+            write(candidate);
+        }
+    }
+
+    /**
+     * Writes the buffered candidates to the channel.
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @return the number of candidates written so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Writes the end marker and the buffered candidates, and closes the channel.
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put(END);
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
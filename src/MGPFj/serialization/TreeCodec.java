@@ -0,0 +1,234 @@
+package MGPFj.serialization;
+
+import MGPFj.chromosome.Node;
+import MGPFj.grammar.CFG;
+import MGPFj.grammar.NonTerminal;
+import MGPFj.grammar.Production;
+import MGPFj.grammar.Symbol;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes trees as the indices of their productions in the CFG, in prefix order. <p/>
+ * Every non-terminal node is one production, and the terminals are implied by the productions,
+ * so a tree is read back by expanding the productions in the same order. The indices are written as varints,
+ * so a tree of a grammar with less than 128 productions takes one byte per non-terminal node. <p/>
+ * The fingerprint of the CFG identifies the grammar the trees belong to. It is written in the headers of the
+ * files and connections, so trees of another grammar are rejected instead of being read wrong. <p/>
+ * [NOTE: both sides must build the same CFG, with the productions in the same order.]
+ */
+public class TreeCodec {
+
+    private final CFG cfg;
+    private final Production[] productions;
+    private final Map<Production, Integer> indices;
+    private final long fingerprint;
+
+    public TreeCodec(CFG cfg) {
+        this.cfg = cfg;
+        this.productions = cfg.getProductions().toArray(new Production[0]);
+        this.indices = new HashMap<Production, Integer>();
+        this.fingerprint = fingerprint(cfg);
+
+        for (int i = 0; i < productions.length; i++) {
+            indices.put(productions[i], i);
+        }
+    }
+
+    /**
+     * A 64 bit hash of the start symbol and the productions, in order. It only depends on the symbol names,
+     * so it is the same across runs and processes.
+     * @param cfg the CFG
+     * @return the fingerprint
+     */
+    public static long fingerprint(CFG cfg) {
+        long h = hash(0, cfg.getStartSymbol());
+
+        for (Production production : cfg.getProductions()) {
+            h = hash(h, production.getLhs());
+            for (Symbol symbol : production.getRhs()) {
+                h = hash(h, symbol);
+            }
+            h = h * 0x100000001B3L + production.getRhs().length;
+        }
+
+        //final mixing (from the splitmix64 generator)
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * @param node the root of the tree. It must be a non-terminal node.
+     * @param out the output
+     * @throws IOException if writing fails
+     */
+    public void write(Node node, DataOutput out) throws IOException {
+        int index = getIndex(node);
+
+        while ((index & ~0x7F) != 0) {
+            out.writeByte((index & 0x7F) | 0x80);
+            index >>>= 7;
+        }
+        out.writeByte(index);
+
+        for (Node child : node.getChildren()) {
+            if (child.getSymbol() instanceof NonTerminal) {
+                write(child, out);
+            }
+        }
+    }
+
+    /**
+     * @param node the root of the tree. It must be a non-terminal node.
+     * @param out the output
+     * @throws java.nio.BufferOverflowException if the buffer is too small, see {@link #getEncodedSize(Node)}
+     */
+    public void write(Node node, ByteBuffer out) {
+        int index = getIndex(node);
+
+        while ((index & ~0x7F) != 0) {
+            out.put((byte) ((index & 0x7F) | 0x80));
+            index >>>= 7;
+        }
+        out.put((byte) index);
+
+        for (Node child : node.getChildren()) {
+            if (child.getSymbol() instanceof NonTerminal) {
+                write(child, out);
+            }
+        }
+    }
+
+    /**
+     * @param in the input
+     * @return a new tree
+     * @throws IOException if reading fails or the tree does not belong to the CFG
+     */
+    public Node read(DataInput in) throws IOException {
+        return read(in, null);
+    }
+
+    /**
+     * @param in the input
+     * @return a new tree
+     * @throws IOException if the tree does not belong to the CFG
+     * @throws java.nio.BufferUnderflowException if the buffer ends before the tree
+     */
+    public Node read(ByteBuffer in) throws IOException {
+        return read(in, null);
+    }
+
+    /**
+     * @param node the root of the tree
+     * @return the number of bytes written for the tree
+     */
+    public int getEncodedSize(Node node) {
+        int size = 1;
+
+        for (int index = getIndex(node); (index & ~0x7F) != 0; index >>>= 7) {
+            size++;
+        }
+
+        for (Node child : node.getChildren()) {
+            if (child.getSymbol() instanceof NonTerminal) {
+                size += getEncodedSize(child);
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * @return the fingerprint of the CFG, see {@link #fingerprint(CFG)}
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return the CFG of the trees
+     */
+    public CFG getCfg() {
+        return cfg;
+    }
+
+    private Node read(DataInput in, Node parent) throws IOException {
+        int index = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            index |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0 && shift < 32);
+
+        Production production = getProduction(index);
+        List<Node> children = new ArrayList<Node>();
+        Node node = new Node(parent, production.getLhs(), children);
+
+        for (Symbol symbol : production.getRhs()) {
+            if (symbol instanceof NonTerminal) {
+                children.add(read(in, node));
+            } else {
+                children.add(new Node(node, symbol, new ArrayList<Node>()));
+            }
+        }
+
+        return node;
+    }
+
+    private Node read(ByteBuffer in, Node parent) throws IOException {
+        int index = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            index |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0 && shift < 32);
+
+        Production production = getProduction(index);
+        List<Node> children = new ArrayList<Node>();
+        Node node = new Node(parent, production.getLhs(), children);
+
+        for (Symbol symbol : production.getRhs()) {
+            if (symbol instanceof NonTerminal) {
+                children.add(read(in, node));
+            } else {
+                children.add(new Node(node, symbol, new ArrayList<Node>()));
+            }
+        }
+
+        return node;
+    }
+
+    private Production getProduction(int index) throws IOException {
+        if (index < 0 || index >= productions.length) {
+            throw new IOException("Unknown production index: " + index);
+        }
+
+        return productions[index];
+    }
+
+    private int getIndex(Node node) {
+        Integer index = indices.get(node.getProduction());
+
+        if (index == null) {
+            throw new RuntimeException("The tree does not belong to the CFG: " + node.getTreeNotation());
+        }
+
+        return index;
+    }
+
+    private static long hash(long h, Symbol symbol) {
+        return (h ^ symbol.getSymbolName().hashCode()) * 0x9E3779B97F4A7C15L + 1;
+    }
+}
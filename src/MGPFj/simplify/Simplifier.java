@@ -0,0 +1,294 @@
+package MGPFj.simplify;
+
+import MGPFj.chromosome.Node;
+import MGPFj.grammar.*;
+import MGPFj.holder.Arguments;
+import MGPFj.terminal.constant.Constant;
+import MGPFj.terminal.operation.Operation;
+
+import java.util.*;
+
+/**
+ * Rewrites the trees into smaller but equivalent trees, using {@link Operation#simplify(Arguments)}. <p/>
+ * The trees are simplified bottom up. A rewrite is kept only if the result can be derived from the CFG,
+ * and it has less nodes and no more depth than the original branch. <p/>
+ * An operation may return a terminal node (eg, the folded value of a constant expression). Then it is replaced with
+ * the equal terminal of the CFG and derived from the non-terminal through the unit productions (eg, E =:: F =:: c3).
+ */
+public class Simplifier {
+
+    private final CFG cfg;
+    private final Map<Object, Constant> constants = new HashMap<Object, Constant>();
+
+    private long lastNodeCount;
+    private long lastSimplifiedNodeCount;
+
+    public Simplifier(CFG cfg) {
+        this.cfg = cfg;
+
+        for (Terminal terminal : cfg.getTerminals()) {
+            if (terminal instanceof Constant) {
+                Object value = terminal.evaluate(null, null);
+                if (!constants.containsKey(value)) {
+                    constants.put(value, (Constant) terminal);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a terminal node holding a constant value. Operations use this to return a folded constant.
+     * @param value the value
+     * @return a node without parent
+     */
+    public static Node createConstantNode(Object value) {
+        return new Node(null, new Constant(String.valueOf(value), value), new ArrayList<Node>());
+    }
+
+    /**
+     * @param node a branch of a tree
+     * @param value the expected value
+     * @return true if the branch is constant and evaluates to the given value.
+     */
+    public static boolean hasConstantValue(Node node, Object value) {
+        return node.isConstant() && value.equals(node.evaluate(null));
+    }
+
+    /**
+     * Simplifies all the trees.
+     * The node counts before and after are kept, see {@link #getLastShrinkPercentage()}.
+     * @param nodes the trees
+     * @return the simplified trees in the same order.
+     */
+    public List<Node> simplifyAll(List<Node> nodes) {
+        List<Node> result = new ArrayList<Node>(nodes.size());
+
+        long before = 0;
+        long after = 0;
+
+        for (Node node : nodes) {
+            Node simplified = simplify(node);
+
+            before += node.getNodeCount();
+            after += simplified.getNodeCount();
+
+            result.add(simplified);
+        }
+
+        this.lastNodeCount = before;
+        this.lastSimplifiedNodeCount = after;
+
+        return result;
+    }
+
+    /**
+     * @param root the root node of the tree
+     * @return a simplified copy of the tree. The given tree is not modified.
+     */
+    public Node simplify(Node root) {
+        return simplify(root, null);
+    }
+
+    /**
+     * @return how much smaller the trees of the last {@link #simplifyAll(List)} call are, as a percentage.
+     */
+    public double getLastShrinkPercentage() {
+        if (lastNodeCount == 0) {
+            return 0;
+        }
+
+        return 100.0 * (lastNodeCount - lastSimplifiedNodeCount) / lastNodeCount;
+    }
+
+    private Node simplify(Node node, Node parent) {
+
+        if (node.getSymbol() instanceof Terminal) {
+            return new Node(parent, node.getSymbol(), new ArrayList<Node>());
+        }
+
+        List<Node> children = new ArrayList<Node>();
+        Node copy = new Node(parent, node.getSymbol(), children);
+
+        for (Node child : node.getChildren()) {
+            children.add(simplify(child, copy));
+        }
+
+        if (children.size() < 2 || !(children.get(0).getSymbol() instanceof Operation)) {
+            return copy;
+        }
+
+        Operation operation = (Operation) children.get(0).getSymbol();
+        Node replacement = operation.simplify(Arguments.createArguments(children.subList(1, children.size())));
+
+        if (replacement == null) {
+            return copy;
+        }
+
+        Node legal = legalize(replacement, (NonTerminal) node.getSymbol(), parent);
+
+        if (legal == null || legal.getNodeCount() >= copy.getNodeCount() || legal.getTreeDepth() > copy.getTreeDepth()) {
+            return copy;
+        }
+
+        return legal;
+    }
+
+    /**
+     * Converts the node returned by an operation into a branch which is derived from the given non-terminal.
+     * @return the derived branch, or null if the CFG cannot derive it.
+     */
+    private Node legalize(Node replacement, NonTerminal lhs, Node parent) {
+
+        if (replacement.getSymbol() instanceof Terminal) {
+            Terminal terminal = findTerminal((Terminal) replacement.getSymbol());
+
+            if (terminal == null) {
+                return null;
+            }
+
+            List<NonTerminal> path = findUnitPath(lhs, terminal);
+
+            if (path == null) {
+                return null;
+            }
+
+            Node last = createChain(path, parent);
+            last.getChildren().add(new Node(last, terminal, new ArrayList<Node>()));
+
+            return root(last, parent);
+        }
+
+        if (!isDerivable(replacement)) {
+            return null;
+        }
+
+        List<NonTerminal> path = findUnitPath(lhs, replacement.getSymbol());
+
+        if (path == null) {
+            return null;
+        }
+
+        if (path.size() == 1) {
+            return replacement.copyTree(parent);
+        }
+
+        Node last = createChain(path.subList(0, path.size() - 1), parent);
+        last.getChildren().add(replacement.copyTree(last));
+
+        return root(last, parent);
+    }
+
+    /**
+     * Finds the shortest chain of unit productions from the non-terminal to the target. <p/>
+     * For a terminal target, the last non-terminal has a production which derives the terminal.
+     * For a non-terminal target, the last non-terminal is the target.
+     * @return the chain of non-terminals starting from the given one, or null if there is no chain.
+     */
+    private List<NonTerminal> findUnitPath(NonTerminal from, Symbol target) {
+        Map<NonTerminal, NonTerminal> previous = new HashMap<NonTerminal, NonTerminal>();
+        LinkedList<NonTerminal> queue = new LinkedList<NonTerminal>();
+
+        previous.put(from, null);
+        queue.add(from);
+
+        while (!queue.isEmpty()) {
+            NonTerminal current = queue.removeFirst();
+
+            boolean found = false;
+            if (target instanceof NonTerminal) {
+                found = current.equals(target);
+            } else {
+                for (Production production : cfg.getProductionsOf(current)) {
+                    if (production.getRhs().length == 1 && production.getRhs()[0] == target) {
+                        found = true;
+                        break;
+                    }
+                }
+            }
+
+            if (found) {
+                LinkedList<NonTerminal> path = new LinkedList<NonTerminal>();
+                for (NonTerminal n = current; n != null; n = previous.get(n)) {
+                    path.addFirst(n);
+                }
+                return path;
+            }
+
+            for (Production production : cfg.getProductionsOf(current)) {
+                if (production.getRhs().length == 1 && production.getRhs()[0] instanceof NonTerminal) {
+                    NonTerminal next = (NonTerminal) production.getRhs()[0];
+                    if (!previous.containsKey(next)) {
+                        previous.put(next, current);
+                        queue.add(next);
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates a chain of nodes, each node being the only child of the previous one.
+     * @return the last node of the chain
+     */
+    private Node createChain(List<NonTerminal> path, Node parent) {
+        Node last = parent;
+
+        for (NonTerminal nonTerminal : path) {
+            Node node = new Node(last, nonTerminal, new ArrayList<Node>());
+            if (last != parent) {
+                last.getChildren().add(node);
+            }
+            last = node;
+        }
+
+        return last;
+    }
+
+    private Node root(Node node, Node parent) {
+        while (node.getParent() != parent) {
+            node = node.getParent();
+        }
+        return node;
+    }
+
+    /**
+     * @return the terminal of the CFG which is equal to the given one.
+     */
+    private Terminal findTerminal(Terminal terminal) {
+        for (Terminal t : cfg.getTerminals()) {
+            if (t == terminal) {
+                return t;
+            }
+        }
+
+        if (terminal instanceof Constant) {
+            return constants.get(terminal.evaluate(null, null));
+        }
+
+        return null;
+    }
+
+    /**
+     * @return true if all the productions of the branch are in the CFG.
+     */
+    private boolean isDerivable(Node node) {
+
+        if (node.getSymbol() instanceof Terminal) {
+            return findTerminal((Terminal) node.getSymbol()) == node.getSymbol();
+        }
+
+        if (!cfg.getProductions().contains(node.getProduction())) {
+            return false;
+        }
+
+        for (Node child : node.getChildren()) {
+            if (!isDerivable(child)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,110 @@
+package MGPFj.utils;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive long values, using open addressing with linear probing. <p/>
+ * There is no boxing and no entry objects, so adding a value does not allocate unless the set grows.
+ * The value 0 is used to mark free slots, so it is kept aside in a flag.
+ */
+public class LongHashSet {
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private boolean containsZero;
+
+    /**
+     * @param expectedSize number of values the set holds without growing.
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @param key the value
+     * @return true if the value was not already in the set.
+     */
+    public boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int i = index(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        size++;
+
+        //keeping the load factor under 0.5
+        if (size * 2 > keys.length) {
+            grow();
+        }
+
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+
+        int i = index(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all the values, keeping the capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+
+        keys = new long[oldKeys.length * 2];
+        mask = keys.length - 1;
+
+        for (long key : oldKeys) {
+            if (key != 0) {
+                int i = index(key);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+
+    private int index(long key) {
+        //spreading the bits, so the keys with similar low bits do not cluster
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
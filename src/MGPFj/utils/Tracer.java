@@ -0,0 +1,71 @@
+package MGPFj.utils;
+
+import MGPFj.genetic_operators.GeneticOperator;
+
+/**
+ * Receives the events of the evolution loop, so they can be recorded by a profiler (eg, MGPFj.jfr.JfrTracer). <p/>
+ * Each event with a duration is opened by a begin method, which returns a token (or null if the event is not
+ * recorded), and closed by the matching end method, which receives the token and the fields of the event. <p/>
+ * By default no tracer is installed, and the instrumented code only pays for reading {@link #get()}.
+ * [NOTE: the methods may be called from several threads at once.]
+ */
+public abstract class Tracer {
+
+    private static volatile Tracer tracer;
+
+    /**
+     * @return the installed tracer, or null if there is none
+     */
+    public static Tracer get() {
+        return tracer;
+    }
+
+    /**
+     * @param newTracer the tracer which receives the events from now on, or null to stop tracing
+     */
+    public static void install(Tracer newTracer) {
+        tracer = newTracer;
+    }
+
+    public abstract Object beginGeneration();
+
+    /**
+     * @param populationSize number of individuals ranked in the generation
+     * @param evaluated number of individuals evaluated in the generation
+     * @param bestFitness fitness of the best individual
+     * @param bestNodeCount number of nodes of the best individual
+     */
+    public abstract void endGeneration(Object token, int generation, int populationSize, int evaluated,
+                                       double bestFitness, int bestNodeCount);
+
+    public abstract Object beginEvaluation();
+
+    /**
+     * @param batchSize number of trees evaluated together
+     * @param nodeCount number of nodes of all the trees
+     */
+    public abstract void endEvaluation(Object token, int batchSize, long nodeCount);
+
+    public abstract Object beginOperator();
+
+    /**
+     * An operator (eg, GBC or GBM) was applied once to create offspring.
+     * @param operator the operator
+     * @param parentNodeCount number of nodes of all the parents
+     * @param offspringCount number of offspring created, 0 if the operator failed
+     * @param offspringNodeCount number of nodes of all the offspring
+     * @param retry whether the attempt retries a slot whose previous attempt failed
+     * @param outcome "created", "retried" (failed, and another attempt follows) or "fallback"
+     *                (failed, and the slot is filled with an unchanged parent)
+     */
+    public abstract void endOperator(Object token, GeneticOperator operator, int parentNodeCount, int offspringCount,
+                                     int offspringNodeCount, boolean retry, String outcome);
+
+    public abstract Object beginCacheLookup();
+
+    /**
+     * @param nodeCount number of nodes of the tree looked up
+     * @param hit whether the fitness was found in the cache
+     */
+    public abstract void endCacheLookup(Object token, int nodeCount, boolean hit);
+}
@@ -0,0 +1,106 @@
+package symbolic_regression_test;
+
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.distributed.DistributedFitness;
+import MGPFj.distributed.EvaluationWorker;
+import MGPFj.engine.DefaultLazyEngine;
+import MGPFj.grammar.CFG;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the symbolic regression of {@link Main}, with the fitness evaluated by worker processes on the same machine.
+ * <p/>
+ * Usage: <p/>
+ * DistributedMain [workerCount] : starts the workers as child JVMs, and runs the engine on them. <p/>
+ * DistributedMain worker [port] : runs a single worker, until the process is killed.
+ */
+public class DistributedMain {
+
+    private static final String READY = "worker listening on port ";
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length > 0 && args[0].equals("worker")) {
+            runWorker(args.length > 1 ? Integer.parseInt(args[1]) : 0);
+            return;
+        }
+
+        int workerCount = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+
+        List<Process> processes = new ArrayList<Process>();
+        List<InetSocketAddress> addresses = new ArrayList<InetSocketAddress>();
+
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                Process process = startWorkerProcess();
+                processes.add(process);
+                addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), readPort(process)));
+            }
+
+            CFG cfg = Main.createCFG();
+            DistributedFitness fitnessFunction = new DistributedFitness(cfg, addresses, 64, 2);
+
+            DefaultLazyEngine de = DefaultLazyEngine.start(cfg, fitnessFunction, 5, 500, 100)
+                    .setDefaultProbabilities(5, 90, 3)
+                    .setTerminateOnMaxFitness(true)
+                    .finish();
+
+            RankedCandidate[] candidates = de.run(false);
+
+            System.out.println(candidates[0].getFitness() + ": " + candidates[0].getNode().getTerminalNotation());
+            System.out.println(fitnessFunction);
+            System.out.println("evaluated: " + fitnessFunction.getEvaluatedCount()
+                    + " in " + fitnessFunction.getBatchCount() + " batches");
+
+            fitnessFunction.close();
+        } finally {
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+    }
+
+    private static void runWorker(int port) throws IOException {
+        EvaluationWorker worker = new EvaluationWorker(Main.createCFG(), new SymbolicFitness(Main.createDataSet()),
+                port);
+
+        System.out.println(READY + worker.getPort());
+        System.out.flush();
+
+        worker.serve();
+    }
+
+    private static Process startWorkerProcess() throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                DistributedMain.class.getName(), "worker");
+        builder.redirectErrorStream(true);
+
+        return builder.start();
+    }
+
+    /**
+     * Waits until the worker prints its port.
+     */
+    private static int readPort(Process process) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(READY)) {
+                return Integer.parseInt(line.substring(READY.length()).trim());
+            }
+        }
+
+        throw new IOException("The worker process exited before listening");
+    }
+}
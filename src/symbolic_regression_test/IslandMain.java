@@ -0,0 +1,102 @@
+package symbolic_regression_test;
+
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.distributed.SocketMigrator;
+import MGPFj.engine.DefaultLazyEngine;
+import MGPFj.grammar.CFG;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the symbolic regression of {@link Main} on a ring of islands, each in its own process on the same machine.
+ * <p/>
+ * Usage: <p/>
+ * IslandMain [islandCount] : starts the islands as child JVMs, and prints their results. <p/>
+ * IslandMain island [port] [neighbourPort] : runs a single island. <p/>
+ * IslandMain island [port] [neighbourPort] [neighbourHost] : runs a single island of a ring which spans several
+ * machines. The island listens on all the interfaces.
+ */
+public class IslandMain {
+
+    public static void main(String[] args) throws Exception {
+
+        if (args.length > 0 && args[0].equals("island")) {
+            if (args.length > 3) {
+                runIsland(Integer.parseInt(args[1]), InetAddress.getByName("0.0.0.0"),
+                        new InetSocketAddress(args[3], Integer.parseInt(args[2])));
+            } else {
+                runIsland(Integer.parseInt(args[1]), InetAddress.getLoopbackAddress(),
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[2])));
+            }
+            return;
+        }
+
+        int islandCount = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+
+        //reserving a free port for each island
+        int[] ports = new int[islandCount];
+        for (int i = 0; i < islandCount; i++) {
+            ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            ports[i] = socket.getLocalPort();
+            socket.close();
+        }
+
+        List<Process> processes = new ArrayList<Process>();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+        try {
+            for (int i = 0; i < islandCount; i++) {
+                ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        IslandMain.class.getName(), "island",
+                        String.valueOf(ports[i]), String.valueOf(ports[(i + 1) % islandCount]));
+                builder.redirectErrorStream(true);
+                processes.add(builder.start());
+            }
+
+            for (int i = 0; i < islandCount; i++) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(processes.get(i).getInputStream()));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    System.out.println("island " + i + ": " + line);
+                }
+                processes.get(i).waitFor();
+            }
+        } finally {
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+    }
+
+    private static void runIsland(int port, InetAddress bindAddress, InetSocketAddress neighbour) throws IOException {
+        CFG cfg = Main.createCFG();
+
+        List<InetSocketAddress> neighbours = new ArrayList<InetSocketAddress>();
+        neighbours.add(neighbour);
+
+        SocketMigrator migrator = new SocketMigrator(cfg, port, bindAddress, neighbours, 5, 10);
+        migrator.start();
+
+        DefaultLazyEngine de = DefaultLazyEngine.start(cfg, new SymbolicFitness(Main.createDataSet()), 5, 200, 200)
+                .setDefaultProbabilities(5, 90, 3)
+                .setEliteCount(2)
+                .setMigrator(migrator)
+                .setTerminateOnMaxFitness(true)
+                .finish();
+
+        RankedCandidate[] candidates = de.run(false);
+
+        migrator.close();
+
+        System.out.println(candidates[0].getFitness() + ": " + candidates[0].getNode().getTerminalNotation());
+        System.out.println(migrator);
+    }
+}
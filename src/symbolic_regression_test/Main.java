@@ -16,6 +16,25 @@ public class Main{
 
     public static void main(String[] args) {
 
+        CFG cfg = createCFG();
+
+        //FITNESS FUNCTION
+        FitnessFunction fitnessFunction = new SymbolicFitness(createDataSet());
+
+        //CALL THE ENGINE
+        DefaultLazyEngine de = DefaultLazyEngine.start(cfg, fitnessFunction, 5, 500, 100)
+                .setDefaultProbabilities(5, 90, 3)
+                .setTerminateOnMaxFitness(false)
+                .finish();
+
+        RankedCandidate[] candidates = de.run(true);
+
+        System.out.println(candidates[0].getFitness() + ": " +candidates[0].getNode().getTerminalNotation());
+
+    }
+
+    static CFG createCFG() {
+
         //CREATE CFG
         Operation plus = new Plus();
         Operation minus = new Minus();
@@ -48,22 +67,10 @@ public class Main{
                 .setStartSymbol(e)
                 .build();
 
-        //FITNESS FUNCTION
-        FitnessFunction fitnessFunction = new SymbolicFitness(createDataSet());
-
-        //CALL THE ENGINE
-        DefaultLazyEngine de = DefaultLazyEngine.start(cfg, fitnessFunction, 5, 500, 100)
-                .setDefaultProbabilities(5, 90, 3)
-                .setTerminateOnMaxFitness(false)
-                .finish();
-
-        RankedCandidate[] candidates = de.run(true);
-
-        System.out.println(candidates[0].getFitness() + ": " +candidates[0].getNode().getTerminalNotation());
-
+        return cfg;
     }
 
-    private static Map<Integer, Integer> createDataSet() {
+    static Map<Integer, Integer> createDataSet() {
         Map<Integer, Integer> map = new HashMap<Integer, Integer>();
 
         for (int i = -10; i < 12; i++) {
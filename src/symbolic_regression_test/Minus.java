@@ -3,6 +3,7 @@ package symbolic_regression_test;
 import MGPFj.chromosome.Node;
 import MGPFj.holder.Arguments;
 import MGPFj.holder.Assignments;
+import MGPFj.simplify.Simplifier;
 import MGPFj.terminal.operation.Operation;
 
 public class Minus implements Operation {
@@ -38,6 +39,25 @@ public class Minus implements Operation {
 
     @Override
     public Node simplify(Arguments arguments) {
+
+        Node a = arguments.firstArg();
+        Node b = arguments.secondArg();
+
+        //both args are constants
+        if (a.isConstant() && b.isConstant()) {
+            return Simplifier.createConstantNode(evaluate(arguments, null));
+        }
+
+        //x - 0 = x
+        if (Simplifier.hasConstantValue(b, 0)) {
+            return a;
+        }
+
+        //x - x = 0, for any common sub expression x
+        if (a.isStructurallyEqual(b)) {
+            return Simplifier.createConstantNode(0);
+        }
+
         return null;
     }
 }
@@ -3,6 +3,7 @@ package symbolic_regression_test;
 import MGPFj.chromosome.Node;
 import MGPFj.holder.Arguments;
 import MGPFj.holder.Assignments;
+import MGPFj.simplify.Simplifier;
 import MGPFj.terminal.operation.Operation;
 
 public class Multiply implements Operation {
@@ -35,6 +36,29 @@ public class Multiply implements Operation {
 
     @Override
     public Node simplify(Arguments arguments) {
+
+        Node a = arguments.firstArg();
+        Node b = arguments.secondArg();
+
+        //both args are constants
+        if (a.isConstant() && b.isConstant()) {
+            return Simplifier.createConstantNode(evaluate(arguments, null));
+        }
+
+        //x * 0 = 0
+        if (Simplifier.hasConstantValue(a, 0) || Simplifier.hasConstantValue(b, 0)) {
+            return Simplifier.createConstantNode(0);
+        }
+
+        //x * 1 = x
+        if (Simplifier.hasConstantValue(a, 1)) {
+            return b;
+        }
+
+        if (Simplifier.hasConstantValue(b, 1)) {
+            return a;
+        }
+
         return null;
     }
 }
@@ -3,6 +3,7 @@ package symbolic_regression_test;
 import MGPFj.chromosome.Node;
 import MGPFj.holder.Arguments;
 import MGPFj.holder.Assignments;
+import MGPFj.simplify.Simplifier;
 import MGPFj.terminal.operation.Operation;
 
 public class Plus implements Operation {
@@ -41,10 +42,23 @@ public class Plus implements Operation {
     @Override
     public Node simplify(Arguments arguments) {
 
+        Node a = arguments.firstArg();
+        Node b = arguments.secondArg();
+
         //if plus both args are constants
-//        if (arguments.firstArg())
+        if (a.isConstant() && b.isConstant()) {
+            return Simplifier.createConstantNode(evaluate(arguments, null));
+        }
 
         //if one of the arguments is 0 and other is x
+        if (Simplifier.hasConstantValue(a, 0)) {
+            return b;
+        }
+
+        if (Simplifier.hasConstantValue(b, 0)) {
+            return a;
+        }
+
         return null;
     }
 }
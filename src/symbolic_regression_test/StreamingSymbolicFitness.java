@@ -0,0 +1,80 @@
+package symbolic_regression_test;
+
+import MGPFj.chromosome.Node;
+import MGPFj.dataset.ColumnChunkReader;
+import MGPFj.fitness.FitnessFunction;
+import MGPFj.holder.Assignments;
+import MGPFj.utils.Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Same as {@link SymbolicFitness}, but the data set is streamed from a binary columnar file instead of being held
+ * in the memory. <p/>
+ * The file is read once for the whole population. Each chunk of rows is scored against every node before moving
+ * to the next chunk, and the errors are accumulated per node.
+ */
+public class StreamingSymbolicFitness implements FitnessFunction {
+
+    private final ColumnChunkReader reader;
+
+    /**
+     * @param binaryFile the binary columnar file
+     * @param chunkRows number of rows read at a time
+     * @param inputColumn name of the INT column assigned to the variable
+     * @param outputColumn name of the INT column of the expected results
+     * @throws IOException if the file cannot be read
+     */
+    public StreamingSymbolicFitness(File binaryFile, int chunkRows, String inputColumn, String outputColumn)
+            throws IOException {
+        this.reader = new ColumnChunkReader(binaryFile, chunkRows, inputColumn, outputColumn);
+    }
+
+    @Override
+    public double evaluate(Node node) {
+        double[] fitness = new double[1];
+        evaluateAll(Util.createList(node), fitness);
+        return fitness[0];
+    }
+
+    @Override
+    public synchronized void evaluateAll(List<Node> nodes, double[] fitness) {
+
+        Arrays.fill(fitness, 0, nodes.size(), 0);
+
+        try {
+            reader.reset();
+
+            while (reader.next()) {
+                IntBuffer inputs = reader.getIntColumn(0);
+                IntBuffer outputs = reader.getIntColumn(1);
+                int rows = reader.getRows();
+
+                for (int j = 0; j < nodes.size(); j++) {
+                    Node node = nodes.get(j);
+                    double total = 0;
+
+                    for (int i = 0; i < rows; i++) {
+                        Assignments assignments = Assignments.createAssignments(inputs.get(i));
+
+                        Integer res = (Integer) node.evaluate(assignments);
+
+                        total += Math.abs(outputs.get(i) - res);
+                    }
+
+                    fitness[j] += total;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Reading the data set failed", e);
+        }
+    }
+
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -1,17 +1,45 @@
 package symbolic_regression_test;
 
 import MGPFj.chromosome.Node;
-import MGPFj.fitness.FitnessFunction;
+import MGPFj.dataset.ColumnarDataSet;
+import MGPFj.fitness.CaseFitnessFunction;
 import MGPFj.holder.Assignments;
 
+import java.nio.IntBuffer;
 import java.util.Map;
 
-public class SymbolicFitness implements FitnessFunction {
+public class SymbolicFitness implements CaseFitnessFunction {
 
-    private final Map<Integer, Integer> dataSet;
+    private final IntBuffer inputs;
+    private final IntBuffer outputs;
+    private final int caseCount;
 
     public SymbolicFitness(Map<Integer, Integer> dataSet) {
-        this.dataSet = dataSet;
+        int[] inputs = new int[dataSet.size()];
+        int[] outputs = new int[dataSet.size()];
+
+        int i = 0;
+        for (Map.Entry<Integer, Integer> entry : dataSet.entrySet()) {
+            inputs[i] = entry.getKey();
+            outputs[i] = entry.getValue();
+            i++;
+        }
+
+        this.inputs = IntBuffer.wrap(inputs);
+        this.outputs = IntBuffer.wrap(outputs);
+        this.caseCount = inputs.length;
+    }
+
+    /**
+     * Reads the data set directly from the memory mapped columns.
+     * @param dataSet the data set
+     * @param inputColumn name of the INT column assigned to the variable
+     * @param outputColumn name of the INT column of the expected results
+     */
+    public SymbolicFitness(ColumnarDataSet dataSet, String inputColumn, String outputColumn) {
+        this.inputs = dataSet.getIntColumn(dataSet.getColumnIndex(inputColumn));
+        this.outputs = dataSet.getIntColumn(dataSet.getColumnIndex(outputColumn));
+        this.caseCount = inputs.limit();
     }
 
 
@@ -25,21 +53,37 @@ public class SymbolicFitness implements FitnessFunction {
 
         double total = 0;
 
-        for (Integer key: dataSet.keySet()) {
-
-            Assignments assignments = Assignments.createAssignments(key);
+        for (int i = 0; i < caseCount; i++) {
+            total += error(node, i);
+        }
 
-            Integer res = (Integer) node.evaluate(assignments);
+//        return total / dataSet.keySet().size();
+        return total;
+    }
 
-            Integer actualRes = dataSet.get(key);
+    @Override
+    public double evaluate(Node node, int[] cases, int count) {
 
-            Integer diff = Math.abs(actualRes - res);
+        double total = 0;
 
-            total += diff;
+        for (int i = 0; i < count; i++) {
+            total += error(node, cases[i]);
         }
 
-//        return total / dataSet.keySet().size();
         return total;
     }
 
+    @Override
+    public int getCaseCount() {
+        return caseCount;
+    }
+
+    private int error(Node node, int i) {
+        Assignments assignments = Assignments.createAssignments(inputs.get(i));
+
+        Integer res = (Integer) node.evaluate(assignments);
+
+        return Math.abs(outputs.get(i) - res);
+    }
+
 }
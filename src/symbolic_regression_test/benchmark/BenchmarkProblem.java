@@ -0,0 +1,144 @@
+package symbolic_regression_test.benchmark;
+
+import MGPFj.grammar.CFG;
+import MGPFj.grammar.NonTerminal;
+import MGPFj.grammar.Production;
+import MGPFj.terminal.constant.Constant;
+import MGPFj.terminal.operation.Operation;
+import MGPFj.terminal.variable.Variable;
+import symbolic_regression_test.Minus;
+import symbolic_regression_test.Multiply;
+import symbolic_regression_test.Plus;
+
+import java.util.Arrays;
+
+/**
+ * A symbolic regression problem of the macro benchmark: an integer polynomial to find, and the engine settings
+ * used for it. The grammar is the one of {@link symbolic_regression_test.Main}, with more constants and variables.
+ */
+abstract class BenchmarkProblem {
+
+    //the variable indices are global, so all the problems of the JVM share the same variables
+    private static final Variable[] VARIABLES = Variable.createVariables("x", "y", "z");
+
+    private final String name;
+    private final int variableCount;
+    private final int constantCount;
+    private final int from;
+    private final int to;
+    final int maxDepth;
+    final int popSize;
+    final int generations;
+
+    /**
+     * @param variableCount number of variables, at most 3
+     * @param constantCount number of constants, 0 to constantCount - 1
+     * @param from the first value of each variable in the fitness cases
+     * @param to the last value of each variable in the fitness cases
+     */
+    BenchmarkProblem(String name, int variableCount, int constantCount, int from, int to, int maxDepth, int popSize,
+                     int generations) {
+        this.name = name;
+        this.variableCount = variableCount;
+        this.constantCount = constantCount;
+        this.from = from;
+        this.to = to;
+        this.maxDepth = maxDepth;
+        this.popSize = popSize;
+        this.generations = generations;
+    }
+
+    /**
+     * @param x the values of the variables
+     * @return the expected value of the polynomial
+     */
+    abstract long target(int[] x);
+
+    String getName() {
+        return name;
+    }
+
+    CFG createCFG() {
+        Operation plus = new Plus();
+        Operation minus = new Minus();
+        Operation multiply = new Multiply();
+
+        Constant[] c = new Constant[constantCount];
+        for (int i = 0; i < constantCount; i++) {
+            c[i] = new Constant("c" + i, i);
+        }
+
+        Variable[] v = Arrays.copyOf(VARIABLES, variableCount);
+
+        NonTerminal e = new NonTerminal("E");
+        NonTerminal f = new NonTerminal("F");
+
+        return CFG.startBuilding()
+                .addNonTerminals(e, f)
+                .addTerminals(v)
+                .addTerminals(c)
+                .addTerminals(minus, multiply, plus)
+                .addProductions(new Production(e, e, minus, e), new Production(e, e, plus, e),
+                        new Production(e, e, multiply, e), new Production(e, f), new Production(e, e, plus, f))
+                .addProductions(Production.createConstantProductions(f, c))
+                .addProductions(Production.createVariableProductions(f, v))
+                .setStartSymbol(e)
+                .build();
+    }
+
+    /**
+     * @return every combination of the variable values from..to
+     */
+    int[][] createCases() {
+        int width = to - from + 1;
+        int count = 1;
+        for (int i = 0; i < variableCount; i++) {
+            count *= width;
+        }
+
+        int[][] cases = new int[count][variableCount];
+        for (int i = 0; i < count; i++) {
+            int rest = i;
+            for (int j = 0; j < variableCount; j++) {
+                cases[i][j] = from + rest % width;
+                rest /= width;
+            }
+        }
+
+        return cases;
+    }
+
+    /**
+     * @return the problem of {@link symbolic_regression_test.Main}, and harder ones
+     */
+    static BenchmarkProblem[] createProblems() {
+        return new BenchmarkProblem[]{
+                //x*x + 2x + 1, as in Main
+                new BenchmarkProblem("main", 1, 11, -10, 11, 5, 500, 100) {
+                    @Override
+                    long target(int[] x) {
+                        return (long) x[0] * x[0] + 2 * x[0] + 1;
+                    }
+                },
+                new BenchmarkProblem("multi-variable", 3, 11, -3, 3, 6, 500, 100) {
+                    @Override
+                    long target(int[] x) {
+                        return (long) x[0] * x[1] + (long) x[1] * x[2] + x[0] + 1;
+                    }
+                },
+                new BenchmarkProblem("many-constants", 1, 100, -10, 11, 6, 500, 100) {
+                    @Override
+                    long target(int[] x) {
+                        return (long) x[0] * x[0] * x[0] - 37L * x[0] + 64;
+                    }
+                },
+                new BenchmarkProblem("deep", 1, 11, -10, 11, 9, 500, 100) {
+                    @Override
+                    long target(int[] x) {
+                        long x2 = (long) x[0] * x[0];
+                        return x2 * x2 + x2 * x[0] + x2 + x[0] + 1;
+                    }
+                }
+        };
+    }
+}
@@ -0,0 +1,262 @@
+package symbolic_regression_test.benchmark;
+
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.engine.DefaultLazyEngine;
+import MGPFj.engine.MetricsSnapshot;
+import MGPFj.fitness.FitnessFunction;
+import MGPFj.fitness.ParallelFitness;
+import MGPFj.grammar.CFG;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs whole evolutions of several symbolic regression problems (see {@link BenchmarkProblem}), with several
+ * repetitions and evaluation thread counts, and reports the results as JSON, so two builds can be compared. <p/>
+ * For each run: the wall time, the time to reach the max fitness (null if it is not reached), the evaluations per
+ * second, and the peak heap. For each thread count: the success rate, the median time to target, and the speedup
+ * of the evaluations per second over a single thread. <p/>
+ * Usage: MacroBenchmark [runs] [output.json] <p/>
+ * The default is 3 runs, written to the standard output. The progress is printed to the standard error. <p/>
+ * Run r of every problem and thread count is seeded with r + 1 (see
+ * {@link DefaultLazyEngine.DefaultEngineLazyCreator#setSeed(long)}), and the seed is written to the report. So a
+ * run evolves the same trees whatever the thread count and the build, and only its timings change. A change of
+ * the success rate or of the best fitness between two builds means the search itself changed.
+ */
+public class MacroBenchmark {
+
+    public static void main(String[] args) throws IOException {
+
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int[] threadCounts = createThreadCounts(Runtime.getRuntime().availableProcessors());
+        BenchmarkProblem[] problems = BenchmarkProblem.createProblems();
+
+        //one discarded run, so the first measured runs are not slowed down by the JIT compilation
+        run(problems[0], problems[0].createCFG(), new PolynomialFitness(problems[0]), 1, 0);
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"javaVersion\": ").append(quote(System.getProperty("java.version"))).append(",\n");
+        json.append("  \"cores\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        json.append("  \"maxHeapBytes\": ").append(Runtime.getRuntime().maxMemory()).append(",\n");
+        json.append("  \"runs\": ").append(runs).append(",\n");
+        json.append("  \"problems\": [\n");
+
+        for (int p = 0; p < problems.length; p++) {
+            BenchmarkProblem problem = problems[p];
+            CFG cfg = problem.createCFG();
+            FitnessFunction fitnessFunction = new PolynomialFitness(problem);
+
+            json.append("    {\n");
+            json.append("      \"name\": ").append(quote(problem.getName())).append(",\n");
+            json.append("      \"maxDepth\": ").append(problem.maxDepth).append(",\n");
+            json.append("      \"popSize\": ").append(problem.popSize).append(",\n");
+            json.append("      \"generations\": ").append(problem.generations).append(",\n");
+            json.append("      \"threads\": [\n");
+
+            double baseEvaluationsPerSecond = 0;
+
+            for (int t = 0; t < threadCounts.length; t++) {
+                int threads = threadCounts[t];
+                List<RunResult> results = new ArrayList<RunResult>();
+
+                for (int r = 0; r < runs; r++) {
+                    RunResult result = run(problem, cfg, fitnessFunction, threads, r + 1);
+                    results.add(result);
+                    System.err.println(problem.getName() + ", " + threads + " threads, run " + r + ": " + result);
+                }
+
+                double evaluationsPerSecond = 0;
+                for (RunResult result : results) {
+                    evaluationsPerSecond += result.evaluationsPerSecond / runs;
+                }
+                if (t == 0) {
+                    baseEvaluationsPerSecond = evaluationsPerSecond;
+                }
+
+                appendThreads(json, threads, results, evaluationsPerSecond,
+                        evaluationsPerSecond / baseEvaluationsPerSecond);
+                json.append(t < threadCounts.length - 1 ? ",\n" : "\n");
+            }
+
+            json.append("      ]\n");
+            json.append(p < problems.length - 1 ? "    },\n" : "    }\n");
+        }
+
+        json.append("  ]\n");
+        json.append("}\n");
+
+        if (args.length > 1) {
+            Writer writer = new FileWriter(args[1]);
+            try {
+                writer.write(json.toString());
+            } finally {
+                writer.close();
+            }
+        } else {
+            System.out.print(json);
+        }
+    }
+
+    private static RunResult run(BenchmarkProblem problem, CFG cfg, FitnessFunction fitnessFunction, int threads,
+                                 long seed) {
+        ParallelFitness parallelFitness = threads > 1 ? new ParallelFitness(fitnessFunction, threads) : null;
+
+        try {
+            DefaultLazyEngine engine = DefaultLazyEngine.start(cfg,
+                    parallelFitness != null ? parallelFitness : fitnessFunction,
+                    problem.maxDepth, problem.popSize, problem.generations)
+                    .setTerminateOnMaxFitness(true)
+                    .setSeed(seed)
+                    .finish();
+
+            //each run starts from a clean heap, so the peaks are comparable
+            System.gc();
+            List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    pool.resetPeakUsage();
+                    heapPools.add(pool);
+                }
+            }
+
+            long start = System.nanoTime();
+            RankedCandidate[] candidates = engine.run(false);
+            long wallNanos = System.nanoTime() - start;
+
+            long peakHeap = 0;
+            for (MemoryPoolMXBean pool : heapPools) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+
+            MetricsSnapshot metrics = engine.getMetrics().snapshot();
+
+            return new RunResult(seed, wallNanos, candidates[0].getFitness(), metrics.getGenerations(),
+                    metrics.getEvaluations(), metrics.getEvaluationsPerSecond(), peakHeap);
+        } finally {
+            if (parallelFitness != null) {
+                parallelFitness.close();
+            }
+        }
+    }
+
+    private static void appendThreads(StringBuilder json, int threads, List<RunResult> results,
+                                      double evaluationsPerSecond, double speedup) {
+        int successes = 0;
+        long peakHeap = 0;
+        List<Double> timesToTarget = new ArrayList<Double>();
+
+        for (RunResult result : results) {
+            if (result.reachedTarget()) {
+                successes++;
+                timesToTarget.add(result.wallNanos / 1e6);
+            }
+            peakHeap = Math.max(peakHeap, result.peakHeap);
+        }
+
+        json.append("        {\n");
+        json.append("          \"threads\": ").append(threads).append(",\n");
+        json.append("          \"successRate\": ").append((double) successes / results.size()).append(",\n");
+        json.append("          \"medianTimeToTargetMillis\": ").append(median(timesToTarget)).append(",\n");
+        json.append("          \"meanEvaluationsPerSecond\": ").append(number(evaluationsPerSecond)).append(",\n");
+        json.append("          \"speedup\": ").append(number(speedup)).append(",\n");
+        json.append("          \"maxPeakHeapBytes\": ").append(peakHeap).append(",\n");
+        json.append("          \"runs\": [\n");
+
+        for (int i = 0; i < results.size(); i++) {
+            RunResult result = results.get(i);
+            json.append("            {\"seed\": ").append(result.seed)
+                    .append(", \"wallMillis\": ").append(number(result.wallNanos / 1e6))
+                    .append(", \"timeToTargetMillis\": ")
+                    .append(result.reachedTarget() ? number(result.wallNanos / 1e6) : "null")
+                    .append(", \"bestFitness\": ").append(number(result.bestFitness))
+                    .append(", \"generations\": ").append(result.generations)
+                    .append(", \"evaluations\": ").append(result.evaluations)
+                    .append(", \"evaluationsPerSecond\": ").append(number(result.evaluationsPerSecond))
+                    .append(", \"peakHeapBytes\": ").append(result.peakHeap)
+                    .append(i < results.size() - 1 ? "},\n" : "}\n");
+        }
+
+        json.append("          ]\n");
+        json.append("        }");
+    }
+
+    /**
+     * @return 1, 2, 4, ... up to the number of cores, and the number of cores itself
+     */
+    private static int[] createThreadCounts(int cores) {
+        List<Integer> counts = new ArrayList<Integer>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(cores);
+
+        int[] result = new int[counts.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+
+    private static String median(List<Double> values) {
+        if (values.isEmpty()) {
+            return "null";
+        }
+
+        double[] sorted = new double[values.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = values.get(i);
+        }
+        Arrays.sort(sorted);
+
+        int middle = sorted.length / 2;
+        return number(sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2);
+    }
+
+    //JSON has no NaN or infinity
+    private static String number(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : String.valueOf(value);
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static class RunResult {
+        private final long seed;
+        private final long wallNanos;
+        private final double bestFitness;
+        private final long generations;
+        private final long evaluations;
+        private final double evaluationsPerSecond;
+        private final long peakHeap;
+
+        private RunResult(long seed, long wallNanos, double bestFitness, long generations, long evaluations,
+                          double evaluationsPerSecond, long peakHeap) {
+            this.seed = seed;
+            this.wallNanos = wallNanos;
+            this.bestFitness = bestFitness;
+            this.generations = generations;
+            this.evaluations = evaluations;
+            this.evaluationsPerSecond = evaluationsPerSecond;
+            this.peakHeap = peakHeap;
+        }
+
+        private boolean reachedTarget() {
+            return bestFitness == 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return "seed " + seed + ": " + (wallNanos / 1000000) + "ms, best: " + bestFitness
+                    + ", generations: " + generations + ", evaluations/s: " + (long) evaluationsPerSecond;
+        }
+    }
+}
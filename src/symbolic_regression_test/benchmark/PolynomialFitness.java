@@ -0,0 +1,63 @@
+package symbolic_regression_test.benchmark;
+
+import MGPFj.chromosome.Node;
+import MGPFj.fitness.CaseFitnessFunction;
+import MGPFj.holder.Assignments;
+
+/**
+ * Sum of the absolute errors of a tree over the fitness cases of a {@link BenchmarkProblem}, with any number of
+ * variables.
+ */
+class PolynomialFitness implements CaseFitnessFunction {
+
+    private final Assignments[] assignments;
+    private final long[] outputs;
+
+    PolynomialFitness(BenchmarkProblem problem) {
+        int[][] cases = problem.createCases();
+        this.assignments = new Assignments[cases.length];
+        this.outputs = new long[cases.length];
+
+        for (int i = 0; i < cases.length; i++) {
+            Object[] values = new Object[cases[i].length];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = cases[i][j];
+            }
+            assignments[i] = Assignments.createAssignments(values);
+            outputs[i] = problem.target(cases[i]);
+        }
+    }
+
+    @Override
+    public double evaluate(Node node) {
+        double total = 0;
+
+        for (int i = 0; i < outputs.length; i++) {
+            total += error(node, i);
+        }
+
+        return total;
+    }
+
+    @Override
+    public double evaluate(Node node, int[] cases, int count) {
+        double total = 0;
+
+        for (int i = 0; i < count; i++) {
+            total += error(node, cases[i]);
+        }
+
+        return total;
+    }
+
+    @Override
+    public int getCaseCount() {
+        return outputs.length;
+    }
+
+    private double error(Node node, int i) {
+        Integer result = (Integer) node.evaluate(assignments[i]);
+
+        return Math.abs((double) outputs[i] - result);
+    }
+}
@@ -0,0 +1,134 @@
+package MGPFj;
+
+import MGPFj.chromosome.Node;
+import MGPFj.fitness.CaseFitnessFunction;
+import MGPFj.fitness.FitnessFunction;
+import MGPFj.grammar.CFG;
+import MGPFj.grammar.NonTerminal;
+import MGPFj.grammar.Production;
+import MGPFj.initialize.GBIM;
+import MGPFj.terminal.constant.Constant;
+import MGPFj.terminal.operation.Operation;
+import MGPFj.utils.Util;
+import symbolic_regression_test.Minus;
+import symbolic_regression_test.Plus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A small CFG of integer expressions without variables, for the tests. <p/>
+ * The trees are evaluated without assignments, so the fitness is known without a data set.
+ */
+public class TestTrees {
+
+    /**
+     * @param maxConstant the constants are 0 to maxConstant
+     * @return the CFG E -> E + E | E - E | F, F -> constants
+     */
+    public static CFG createCFG(int maxConstant) {
+        Operation plus = new Plus();
+        Operation minus = new Minus();
+        Constant[] constants = Util.createIntegerConstants(0, maxConstant);
+
+        NonTerminal e = new NonTerminal("E");
+        NonTerminal f = new NonTerminal("F");
+
+        return CFG.startBuilding()
+                .addNonTerminals(e, f)
+                .addTerminals(constants)
+                .addTerminals(plus, minus)
+                .addProductions(new Production(e, e, plus, e), new Production(e, e, minus, e), new Production(e, f))
+                .addProductions(Production.createConstantProductions(f, constants))
+                .setStartSymbol(e)
+                .build();
+    }
+
+    /**
+     * @param cfg the CFG
+     * @param maxDepth the max depth of the trees
+     * @param count the number of trees
+     * @param seed the seed of the generator
+     * @return random trees of the CFG
+     */
+    public static List<Node> generate(CFG cfg, int maxDepth, int count, long seed) {
+        return new GBIM(cfg, maxDepth, new Random(seed)).generate(0, count, null);
+    }
+
+    /**
+     * @param cfg the CFG
+     * @param maxDepth the max depth of the trees
+     * @param count the number of trees
+     * @param seed the seed of the generator
+     * @return random trees of the CFG, which are not structurally equal to each other
+     */
+    public static List<Node> generateDistinct(CFG cfg, int maxDepth, int count, long seed) {
+        List<Node> result = new ArrayList<Node>();
+        for (Node tree : generate(cfg, maxDepth, 20 * count, seed)) {
+            boolean duplicate = false;
+            for (Node other : result) {
+                duplicate |= other.isStructurallyEqual(tree);
+            }
+            if (!duplicate && result.size() < count) {
+                result.add(tree);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The distance of the value of a tree from 42, which counts its calls.
+     */
+    public static class CountingFitness implements FitnessFunction {
+
+        private int calls;
+
+        @Override
+        public double evaluate(Node node) {
+            calls++;
+            return Math.abs(((Number) node.evaluate(null)).doubleValue() - 42);
+        }
+
+        public int getCalls() {
+            return calls;
+        }
+    }
+
+    /**
+     * The sum of the distances of the value of a tree from the cases 0 to caseCount - 1.
+     */
+    public static class CaseFitness implements CaseFitnessFunction {
+
+        private final int caseCount;
+
+        public CaseFitness(int caseCount) {
+            this.caseCount = caseCount;
+        }
+
+        @Override
+        public int getCaseCount() {
+            return caseCount;
+        }
+
+        @Override
+        public double evaluate(Node node, int[] cases, int count) {
+            double value = ((Number) node.evaluate(null)).doubleValue();
+            double sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += Math.abs(value - cases[i]);
+            }
+            return sum;
+        }
+
+        @Override
+        public double evaluate(Node node) {
+            double value = ((Number) node.evaluate(null)).doubleValue();
+            double sum = 0;
+            for (int i = 0; i < caseCount; i++) {
+                sum += Math.abs(value - i);
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package MGPFj.chromosome;
+
+import MGPFj.TestTrees;
+import MGPFj.grammar.CFG;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class RankedCandidateTest {
+
+    @Test
+    public void distinctRankingEvaluatesEachGenomeOnce() {
+        CFG cfg = TestTrees.createCFG(10);
+        List<Node> distinct = TestTrees.generateDistinct(cfg, 6, 3, 2);
+        Node a = distinct.get(0);
+        Node b = distinct.get(1);
+        Node c = distinct.get(2);
+
+        //a three times, b twice with a known fitness on its second copy, c once with a known fitness
+        List<Node> nodes = new ArrayList<Node>(Arrays.asList(a, a.copyTree(null), b, a.copyTree(null),
+                b.copyTree(null), c));
+        double[] known = {Double.NaN, Double.NaN, Double.NaN, Double.NaN, 1000, 2000};
+
+        TestTrees.CountingFitness fitness = new TestTrees.CountingFitness();
+        RankedCandidate[] ranked = RankedCandidate.rankAndSortDistinct(nodes, known, fitness);
+
+        //only a is evaluated
+        assertEquals(1, fitness.getCalls());
+        double aFitness = new TestTrees.CountingFitness().evaluate(a);
+
+        assertEquals(nodes.size(), ranked.length);
+        int aCount = 0;
+        int bCount = 0;
+        for (RankedCandidate candidate : ranked) {
+            if (candidate.getNode().isStructurallyEqual(a)) {
+                assertEquals(aFitness, candidate.getFitness(), 0);
+                aCount++;
+            } else if (candidate.getNode().isStructurallyEqual(b)) {
+                assertEquals(1000, candidate.getFitness(), 0);
+                bCount++;
+            } else {
+                assertEquals(2000, candidate.getFitness(), 0);
+            }
+        }
+        assertEquals(3, aCount);
+        assertEquals(2, bCount);
+    }
+
+    @Test
+    public void distinctRankingKeepsTheKnownFitnessOfEachNode() {
+        CFG cfg = TestTrees.createCFG(10);
+        Node a = TestTrees.generate(cfg, 6, 1, 4).get(0);
+
+        //an elite and its copy, whose fitness was carried from another parent
+        List<Node> nodes = new ArrayList<Node>(Arrays.asList(a, a.copyTree(null)));
+        RankedCandidate[] ranked = RankedCandidate.rankAndSortDistinct(nodes, new double[]{5, 7},
+                new TestTrees.CountingFitness());
+
+        assertEquals(5, ranked[0].getFitness(), 0);
+        assertEquals(7, ranked[1].getFitness(), 0);
+    }
+}
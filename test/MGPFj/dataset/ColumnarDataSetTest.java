@@ -0,0 +1,88 @@
+package MGPFj.dataset;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import static org.junit.Assert.assertEquals;
+
+public class ColumnarDataSetTest {
+
+    private File directory;
+    private File csvFile;
+    private File binaryFile;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("dataset", "");
+        directory.delete();
+        directory.mkdir();
+        csvFile = new File(directory, "data.csv");
+        binaryFile = new File(directory, "data.bin");
+
+        Writer writer = new FileWriter(csvFile);
+        try {
+            writer.write("x,y\n");
+            for (int i = 0; i < 1000; i++) {
+                writer.write(i + "," + (i * 0.5) + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void conversionKeepsTheValues() throws IOException {
+        ColumnarDataSet dataSet = ColumnarDataSet.fromCsv(csvFile, binaryFile);
+
+        assertEquals(1000, dataSet.getRowCount());
+        assertEquals(ColumnarDataSet.ColumnType.INT, dataSet.getColumnType(0));
+        assertEquals(ColumnarDataSet.ColumnType.DOUBLE, dataSet.getColumnType(1));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, dataSet.getIntColumn(0).get(i));
+            assertEquals(i * 0.5, dataSet.getDoubleColumn(1).get(i), 0);
+        }
+    }
+
+    @Test
+    public void conversionLeavesNoTemporaryFile() throws IOException {
+        ColumnarDataSet.convertCsv(csvFile, binaryFile);
+        ColumnarDataSet.convertCsv(csvFile, binaryFile);
+
+        //only the CSV and the binary file
+        assertEquals(2, directory.listFiles().length);
+    }
+
+    @Test
+    public void headerIsBigEndian() throws IOException {
+        ColumnarDataSet.convertCsv(csvFile, binaryFile);
+
+        DataInputStream in = new DataInputStream(new FileInputStream(binaryFile));
+        try {
+            assertEquals(0x4D475044, in.readInt());
+            assertEquals(1, in.readInt());
+            assertEquals(1000, in.readLong());
+            assertEquals(2, in.readInt());
+        } finally {
+            in.close();
+        }
+    }
+}
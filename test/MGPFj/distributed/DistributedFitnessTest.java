@@ -0,0 +1,136 @@
+package MGPFj.distributed;
+
+import MGPFj.TestTrees;
+import MGPFj.chromosome.Node;
+import MGPFj.grammar.CFG;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DistributedFitnessTest {
+
+    private static final int BATCH_SIZE = 8;
+    private static final int PIPELINE_DEPTH = 4;
+    private static final int POPULATION_SIZE = 25 * BATCH_SIZE;
+
+    private CFG cfg;
+    private List<Node> trees;
+    private double[] expected;
+    private List<EvaluationWorker> workers = new ArrayList<EvaluationWorker>();
+    private DistributedFitness fitness;
+
+    @Before
+    public void setUp() {
+        cfg = TestTrees.createCFG(10);
+        trees = TestTrees.generate(cfg, 8, POPULATION_SIZE, 11);
+
+        TestTrees.CountingFitness local = new TestTrees.CountingFitness();
+        expected = new double[trees.size()];
+        for (int i = 0; i < trees.size(); i++) {
+            expected[i] = local.evaluate(trees.get(i));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (fitness != null) {
+            fitness.close();
+        }
+        for (EvaluationWorker worker : workers) {
+            worker.close();
+        }
+    }
+
+    @Test
+    public void workersOnLoopbackGiveTheLocalFitness() throws IOException {
+        EvaluationWorker first = startWorker(new TestTrees.CountingFitness());
+        EvaluationWorker second = startWorker(new TestTrees.CountingFitness());
+        fitness = new DistributedFitness(cfg, addresses(), BATCH_SIZE, PIPELINE_DEPTH);
+
+        double[] out = evaluate();
+
+        assertEquals(2, fitness.getLastWorkers());
+        assertTrue("batches in flight: " + fitness.getLastMaxInFlight(), fitness.getLastMaxInFlight() > 1);
+        assertEquals(POPULATION_SIZE, first.getEvaluatedCount() + second.getEvaluatedCount());
+        assertEquals(0, fitness.getRedispatchedBatches());
+        assertEquals(POPULATION_SIZE, fitness.getEvaluatedCount());
+        for (int i = 0; i < out.length; i++) {
+            assertEquals(expected[i], out[i], 0);
+        }
+    }
+
+    @Test
+    public void batchesOfAKilledWorkerAreSentToTheOtherWorker() throws IOException {
+        DyingFitness dying = new DyingFitness();
+        EvaluationWorker killed = startWorker(dying);
+        dying.worker = killed;
+        EvaluationWorker survivor = startWorker(new TestTrees.CountingFitness());
+        fitness = new DistributedFitness(cfg, addresses(), BATCH_SIZE, PIPELINE_DEPTH);
+
+        //the killed worker may get its second batch only in a later call, if the other one was faster
+        int calls = 0;
+        while (fitness.getRedispatchedBatches() == 0 && calls < 10) {
+            double[] out = evaluate();
+            calls++;
+
+            for (int i = 0; i < out.length; i++) {
+                assertEquals(expected[i], out[i], 0);
+            }
+        }
+
+        assertTrue(fitness.getRedispatchedBatches() > 0);
+        //the killed worker answered only its first batch, and the other one answered each other batch once
+        assertEquals(BATCH_SIZE, killed.getEvaluatedCount());
+        assertEquals((long) calls * POPULATION_SIZE - BATCH_SIZE, survivor.getEvaluatedCount());
+        assertEquals((long) calls * POPULATION_SIZE, fitness.getEvaluatedCount());
+    }
+
+    private EvaluationWorker startWorker(TestTrees.CountingFitness workerFitness) throws IOException {
+        EvaluationWorker worker = new EvaluationWorker(cfg, workerFitness, 0);
+        worker.start();
+        workers.add(worker);
+        return worker;
+    }
+
+    private List<InetSocketAddress> addresses() {
+        List<InetSocketAddress> addresses = new ArrayList<InetSocketAddress>();
+        for (EvaluationWorker worker : workers) {
+            addresses.add(new InetSocketAddress("127.0.0.1", worker.getPort()));
+        }
+        return addresses;
+    }
+
+    private double[] evaluate() {
+        double[] out = new double[trees.size()];
+        Arrays.fill(out, Double.NaN);
+        fitness.evaluateAll(trees, out);
+        return out;
+    }
+
+    /**
+     * Kills its worker in the middle of the second batch, so the batches in flight on it are lost.
+     */
+    private static class DyingFitness extends TestTrees.CountingFitness {
+
+        private EvaluationWorker worker;
+        private int batches;
+
+        @Override
+        public void evaluateAll(List<Node> nodes, double[] out) {
+            if (++batches == 2) {
+                worker.close();
+                throw new RuntimeException("The worker is killed");
+            }
+            super.evaluateAll(nodes, out);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package MGPFj.engine;
+
+import MGPFj.TestTrees;
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.genetic_operators.GeneticOperator;
+import MGPFj.grammar.CFG;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsynchronousEngineTest {
+
+    private final CFG cfg = TestTrees.createCFG(10);
+
+    @Test
+    public void bothChildrenOfAPairAreKept() {
+        //an operator which always creates 2 children, like GBC
+        GeneticOperator pair = new GeneticOperator() {
+            @Override
+            public List<Node> evolve(List<Node> nodes) {
+                List<Node> result = new ArrayList<Node>();
+                result.add(nodes.get(0).copyTree(null));
+                result.add(nodes.get(1).copyTree(null));
+                return result;
+            }
+        };
+
+        AsynchronousEngine engine = AsynchronousEngine.start(cfg, new TestTrees.CaseFitness(40), 6, 50, 100)
+                .setGeneticOperators(new GeneticOperator[]{pair}, new Integer[]{1})
+                .setThreads(2)
+                .finish();
+        engine.run(false);
+
+        //100 offspring out of 50 calls, none of them truncated
+        OperatorStatistics statistics = engine.getOperatorStatistics()[0];
+        assertEquals(50, statistics.getAttempts());
+        assertEquals(100, statistics.getOffspring());
+    }
+
+    @Test
+    public void improvementsGoToTheListeners() {
+        final List<RankedCandidate> improvements =
+                Collections.synchronizedList(new ArrayList<RankedCandidate>());
+        RankedCandidate[] result = AsynchronousEngine.start(cfg, new TestTrees.CaseFitness(40), 6, 50, 2000)
+                .setThreads(2)
+                .addListener(new EvolutionListener() {
+                    @Override
+                    public void bestImproved(int generation, RankedCandidate best) {
+                        improvements.add(best);
+                    }
+                })
+                .finish()
+                .run(false);
+
+        assertTrue(improvements.size() > 0);
+        for (int i = 1; i < improvements.size(); i++) {
+            assertTrue(improvements.get(i).compareTo(improvements.get(i - 1)) < 0);
+        }
+        assertEquals(result[0].getFitness(), improvements.get(improvements.size() - 1).getFitness(), 0);
+    }
+}
@@ -0,0 +1,206 @@
+package MGPFj.engine;
+
+import MGPFj.TestTrees;
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.genetic_operators.GeneticOperator;
+import MGPFj.genetic_operators.crossover.GBC;
+import MGPFj.genetic_operators.mutation.GBM;
+import MGPFj.genetic_operators.reproduction.DirectCopy;
+import MGPFj.grammar.CFG;
+import MGPFj.serialization.TreeCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CheckpointerTest {
+
+    private static final int GENERATIONS = 10;
+    private static final long SEED = 3;
+
+    private CFG cfg;
+    private File file;
+    private GeneticOperator[] operators;
+    private Integer[] probabilities;
+    private DefaultLazyEngine engine;
+
+    @Before
+    public void setUp() throws IOException {
+        cfg = TestTrees.createCFG(10);
+        file = File.createTempFile("checkpoint", ".bin");
+        operators = new GeneticOperator[]{new DirectCopy(), new GBC(cfg, 6), new GBM(cfg, 6)};
+        probabilities = new Integer[]{10, 80, 10};
+        engine = DefaultLazyEngine.start(cfg, new TestTrees.CountingFitness(), 6, 50, GENERATIONS)
+                .setGeneticOperators(operators, probabilities)
+                .setEliteCount(2)
+                .setCheckpointing(file, 5)
+                .setSeed(3)
+                .finish();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void writeThenReadYieldsTheSameState() throws IOException {
+        EvolutionState state = engine.createState();
+        engine.run(state, 3, false);
+
+        Checkpointer checkpointer = new Checkpointer(file, new TreeCodec(cfg));
+        checkpointer.submit(state);
+        checkpointer.finish();
+        assertEquals(1, checkpointer.getWrittenCount());
+
+        assertSameState(state, read());
+    }
+
+    @Test
+    public void pausedRunLeavesTheCheckpointOfItsLastGeneration() throws IOException {
+        EvolutionState state = engine.createState();
+        engine.run(state, 5, false);
+        assertEquals(5, state.generation);
+
+        assertSameState(state, read());
+    }
+
+    @Test
+    public void resumedRunGoesOnFromTheCheckpoint() throws IOException {
+        EvolutionState state = engine.createState();
+        engine.run(state, 5, false);
+
+        EvolutionState restored = read();
+        RankedCandidate[] result = engine.run(restored, false);
+
+        assertEquals(GENERATIONS + 1, restored.getGeneration());
+        assertTrue(restored.getEvaluations() > state.evaluations);
+        assertEquals(50, result.length);
+
+        //the resumed run replaced the checkpoint with its own
+        assertEquals(GENERATIONS, read().generation);
+    }
+
+    @Test
+    public void resumedRunEndsLikeTheUninterruptedRun() throws IOException {
+        assertResumedRunEndsLikeTheUninterruptedRun(false);
+    }
+
+    @Test
+    public void resumedRunWithSubsamplingEndsLikeTheUninterruptedRun() throws IOException {
+        assertResumedRunEndsLikeTheUninterruptedRun(true);
+    }
+
+    @Test
+    public void checkpointOfAnotherCfgIsRejected() throws IOException {
+        EvolutionState state = engine.createState();
+        engine.run(state, 5, false);
+
+        try {
+            TreeCodec otherCodec = new TreeCodec(TestTrees.createCFG(5));
+            Checkpointer.read(file, otherCodec, operators, probabilities, DuplicatePolicy.NONE);
+            fail("The checkpoint of another CFG was read");
+        } catch (IOException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void otherFileIsRejected() throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[64]);
+        out.close();
+
+        try {
+            read();
+            fail("A file which is not a checkpoint was read");
+        } catch (IOException e) {
+            //expected
+        }
+    }
+
+    /**
+     * Runs all the generations at once, and in another engine stops at generation 7 and resumes from the checkpoint
+     * in a third engine, as after a crash.
+     */
+    private void assertResumedRunEndsLikeTheUninterruptedRun(boolean subsampling) throws IOException {
+        DefaultLazyEngine uninterrupted = createSeededEngine(subsampling);
+        RankedCandidate[] expected = uninterrupted.run(false);
+
+        DefaultLazyEngine interrupted = createSeededEngine(subsampling);
+        EvolutionState state = interrupted.createState();
+        interrupted.run(state, 7, false);
+
+        DefaultLazyEngine resumed = createSeededEngine(subsampling);
+        RankedCandidate[] actual = resumed.resume(file, false);
+
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertSameTree(expected[i].getNode(), actual[i].getNode());
+            assertEquals(expected[i].getFitness(), actual[i].getFitness(), 0);
+        }
+
+        OperatorStatistics[] expectedStatistics = uninterrupted.getOperatorStatistics();
+        OperatorStatistics[] actualStatistics = resumed.getOperatorStatistics();
+        for (int i = 0; i < expectedStatistics.length; i++) {
+            assertEquals(expectedStatistics[i].getAttempts(), actualStatistics[i].getAttempts());
+            assertEquals(expectedStatistics[i].getFailures(), actualStatistics[i].getFailures());
+            assertEquals(expectedStatistics[i].getOffspring(), actualStatistics[i].getOffspring());
+        }
+    }
+
+    /**
+     * @return an engine with the default initializer and operators, which draw from the seeded generator
+     */
+    private DefaultLazyEngine createSeededEngine(boolean subsampling) {
+        DefaultLazyEngine.DefaultEngineLazyCreator creator = DefaultLazyEngine
+                .start(cfg, new TestTrees.CaseFitness(40), 6, 50, GENERATIONS)
+                .setEliteCount(2)
+                .setDuplicateElimination(DuplicatePolicy.REGENERATE)
+                .setCheckpointing(file, 7)
+                .setSeed(SEED);
+        if (subsampling) {
+            creator.setFitnessSubsampling(10, 3);
+        }
+        return creator.finish();
+    }
+
+    private EvolutionState read() throws IOException {
+        return Checkpointer.read(file, new TreeCodec(cfg), operators, probabilities, DuplicatePolicy.NONE);
+    }
+
+    private static void assertSameState(EvolutionState expected, EvolutionState actual) {
+        assertEquals(expected.generation, actual.generation);
+        assertEquals(expected.evaluations, actual.evaluations);
+        assertEquals(expected.elapsedNanos, actual.elapsedNanos);
+
+        assertEquals(expected.population.size(), actual.population.size());
+        for (int i = 0; i < expected.population.size(); i++) {
+            assertSameTree(expected.population.get(i), actual.population.get(i));
+            assertEquals(expected.knownFitness.get(i), actual.knownFitness.get(i), 0);
+        }
+
+        assertEquals(expected.elites.length, actual.elites.length);
+        for (int i = 0; i < expected.elites.length; i++) {
+            assertSameTree(expected.elites[i].getNode(), actual.elites[i].getNode());
+            assertEquals(expected.elites[i].getFitness(), actual.elites[i].getFitness(), 0);
+        }
+
+        //the generator which chooses the operators and the parents goes on from the same point
+        assertEquals(expected.random.nextLong(), actual.random.nextLong());
+    }
+
+    private static void assertSameTree(Node expected, Node actual) {
+        assertTrue(expected.getTreeNotation() + " != " + actual.getTreeNotation(),
+                expected.isStructurallyEqual(actual));
+    }
+}
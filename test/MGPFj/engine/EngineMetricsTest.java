@@ -0,0 +1,79 @@
+package MGPFj.engine;
+
+import MGPFj.TestTrees;
+import MGPFj.fitness.FitnessFunction;
+import MGPFj.fitness.ParallelFitness;
+import MGPFj.fitness.PersistentFitnessCache;
+import MGPFj.grammar.CFG;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EngineMetricsTest {
+
+    private final CFG cfg = TestTrees.createCFG(10);
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("fitness", ".cache");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void wrappedCacheIsFound() throws IOException {
+        PersistentFitnessCache cache = new PersistentFitnessCache(new TestTrees.CaseFitness(40), file, 17, 1 << 16);
+        ParallelFitness fitness = new ParallelFitness(cache, 2);
+        try {
+            DefaultLazyEngine engine = createEngine(fitness);
+            engine.run(false);
+
+            assertFalse(Double.isNaN(engine.getMetrics().getCacheHitRate()));
+            assertEquals(cache.getHitRate(), engine.getMetrics().getCacheHitRate(), 0);
+        } finally {
+            fitness.close();
+        }
+    }
+
+    @Test
+    public void operatorCallsMatchTheStatistics() {
+        DefaultLazyEngine engine = createEngine(new TestTrees.CaseFitness(40));
+        engine.run(false);
+
+        EngineMetrics metrics = engine.getMetrics();
+        OperatorStatistics[] statistics = engine.getOperatorStatistics();
+        assertEquals(statistics.length, metrics.getOperatorNames().length);
+
+        long[] calls = metrics.getCallsPerOperator();
+        long[] millis = metrics.getMillisPerOperator();
+        long totalMillis = 0;
+        for (int i = 0; i < statistics.length; i++) {
+            assertEquals(statistics[i].getOperator().getClass().getSimpleName(), metrics.getOperatorNames()[i]);
+            assertEquals(statistics[i].getAttempts(), calls[i]);
+            assertEquals(calls[i], metrics.snapshot().getOperatorCalls(i));
+            totalMillis += millis[i];
+        }
+        assertTrue(calls[0] > 0);
+        //each operator is rounded down on its own
+        assertTrue(totalMillis <= metrics.getOperatorMillis());
+    }
+
+    private DefaultLazyEngine createEngine(FitnessFunction fitness) {
+        return DefaultLazyEngine.start(cfg, fitness, 6, 50, 5)
+                .setSeed(3)
+                .finish();
+    }
+}
@@ -0,0 +1,58 @@
+package MGPFj.engine;
+
+import MGPFj.TestTrees;
+import MGPFj.fitness.FitnessFunction;
+import MGPFj.fitness.ParallelFitness;
+import MGPFj.grammar.CFG;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GenerationSummaryTest {
+
+    private static final int GENERATIONS = 5;
+
+    private final CFG cfg = TestTrees.createCFG(10);
+
+    @Test
+    public void loadImbalanceOfEachGeneration() {
+        ParallelFitness fitness = new ParallelFitness(new TestTrees.CaseFitness(40), 2);
+        try {
+            List<GenerationSummary> summaries = run(fitness);
+            assertEquals(GENERATIONS + 1, summaries.size());
+            for (GenerationSummary summary : summaries) {
+                //the busiest worker is at least as busy as the mean
+                assertTrue("generation " + summary.getGeneration(), summary.getLoadImbalance() >= 1);
+            }
+        } finally {
+            fitness.close();
+        }
+    }
+
+    @Test
+    public void noLoadImbalanceWithoutParallelFitness() {
+        for (GenerationSummary summary : run(new TestTrees.CaseFitness(40))) {
+            assertTrue(Double.isNaN(summary.getLoadImbalance()));
+        }
+    }
+
+    private List<GenerationSummary> run(FitnessFunction fitness) {
+        final List<GenerationSummary> summaries = Collections.synchronizedList(new ArrayList<GenerationSummary>());
+        DefaultLazyEngine.start(cfg, fitness, 6, 50, GENERATIONS)
+                .setSeed(3)
+                .addListener(new EvolutionListener() {
+                    @Override
+                    public void generationFinished(GenerationSummary summary) {
+                        summaries.add(summary);
+                    }
+                })
+                .finish()
+                .run(false);
+        return summaries;
+    }
+}
@@ -0,0 +1,129 @@
+package MGPFj.engine;
+
+import MGPFj.TestTrees;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ListenerDispatcherTest {
+
+    @Test
+    public void listenerThrowingAnErrorDoesNotStopTheOthers() {
+        CountingListener counting = new CountingListener();
+        List<EvolutionListener> listeners = new ArrayList<EvolutionListener>();
+        listeners.add(new EvolutionListener() {
+            @Override
+            public void generationStarted(int generation) {
+                throw new AssertionError("listener bug");
+            }
+
+            @Override
+            public void runFinished(EvolutionState state) {
+                throw new StackOverflowError();
+            }
+        });
+        listeners.add(counting);
+
+        ListenerDispatcher dispatcher = new ListenerDispatcher(listeners, 16, 10000);
+        for (int i = 0; i < 5; i++) {
+            dispatcher.generationStarted(i);
+        }
+        dispatcher.runFinished(null);
+        dispatcher.close();
+
+        assertEquals(5, counting.started.get());
+        assertEquals(1, counting.finished.get());
+        assertEquals(6, dispatcher.getFailedCalls());
+        assertTrue(dispatcher.getLastFailure() instanceof StackOverflowError);
+    }
+
+    @Test
+    public void stuckListenerDoesNotStallTheEndOfTheRun() {
+        final CountDownLatch release = new CountDownLatch(1);
+        List<EvolutionListener> listeners = new ArrayList<EvolutionListener>();
+        listeners.add(new EvolutionListener() {
+            @Override
+            public void generationStarted(int generation) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        ListenerDispatcher dispatcher = new ListenerDispatcher(listeners, 2, 200);
+        try {
+            long start = System.nanoTime();
+            for (int i = 0; i < 10; i++) {
+                dispatcher.generationStarted(i);
+            }
+            dispatcher.runFinished(null);
+            dispatcher.close();
+            long millis = (System.nanoTime() - start) / 1000000;
+
+            assertTrue("the end of the run waited " + millis + "ms", millis < 5000);
+            //the queue holds 2 events, and one more if the thread took the first one before the queue filled up
+            assertTrue(dispatcher.getDroppedEvents() >= 10 + 1 - 3);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void noListenersQueueNothing() {
+        ListenerDispatcher dispatcher = new ListenerDispatcher(new ArrayList<EvolutionListener>(), 2, 10000);
+        for (int i = 0; i < 10; i++) {
+            dispatcher.generationStarted(i);
+        }
+        dispatcher.runFinished(null);
+        dispatcher.close();
+
+        assertEquals(0, dispatcher.getDroppedEvents());
+    }
+
+    @Test
+    public void failingListenerIsCountedInTheMetrics() {
+        CountingListener counting = new CountingListener();
+        DefaultLazyEngine engine = DefaultLazyEngine.start(TestTrees.createCFG(10), new TestTrees.CountingFitness(),
+                        6, 20, 4)
+                .addListener(new EvolutionListener() {
+                    @Override
+                    public void generationFinished(GenerationSummary summary) {
+                        throw new StackOverflowError();
+                    }
+                })
+                .addListener(counting)
+                .setSeed(1)
+                .finish();
+
+        engine.run(false);
+
+        assertEquals(5, counting.started.get());
+        assertEquals(1, counting.finished.get());
+        assertEquals(5, engine.getMetrics().getFailedListenerCalls());
+        assertEquals(new StackOverflowError().toString(), engine.getMetrics().getLastListenerFailure());
+    }
+
+    private static class CountingListener implements EvolutionListener {
+
+        private final AtomicInteger started = new AtomicInteger();
+        private final AtomicInteger finished = new AtomicInteger();
+
+        @Override
+        public void generationStarted(int generation) {
+            started.incrementAndGet();
+        }
+
+        @Override
+        public void runFinished(EvolutionState state) {
+            finished.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package MGPFj.engine;
+
+import MGPFj.TestTrees;
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.Offspring;
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.genetic_operators.GeneticOperator;
+import MGPFj.grammar.CFG;
+import MGPFj.select.Selector;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OffspringSchedulerTest {
+
+    @Test
+    public void hashCollisionIsNotADuplicate() {
+        //distinct trees which all have the same structural hash
+        final List<Node> trees = TestTrees.generateDistinct(TestTrees.createCFG(10), 6, 10, 3);
+        GeneticOperator operator = new GeneticOperator() {
+            private int next;
+
+            @Override
+            public List<Node> evolve(List<Node> nodes) {
+                List<Node> result = new ArrayList<Node>();
+                result.add(new CollidingNode(trees.get(next++ % trees.size())));
+                return result;
+            }
+        };
+
+        OffspringScheduler scheduler = new OffspringScheduler(new GeneticOperator[]{operator}, new Integer[]{1},
+                DuplicatePolicy.REGENERATE, new Random(1));
+        Offspring[] offspring = scheduler.schedule(createSelector(trees), trees.size());
+
+        Set<String> notations = new HashSet<String>();
+        for (Offspring o : offspring) {
+            notations.add(o.getNode().getTreeNotation());
+        }
+        assertEquals(trees.size(), notations.size());
+        assertEquals(0, scheduler.getLastDuplicateRate(), 0);
+    }
+
+    @Test
+    public void duplicatesAreKeptWhenTheirFitnessIsReused() {
+        final List<Node> trees = TestTrees.generateDistinct(TestTrees.createCFG(10), 6, 2, 3);
+        GeneticOperator operator = new GeneticOperator() {
+            private int next;
+
+            @Override
+            public List<Node> evolve(List<Node> nodes) {
+                List<Node> result = new ArrayList<Node>();
+                result.add(trees.get(next++ % trees.size()).copyTree(null));
+                return result;
+            }
+        };
+
+        OffspringScheduler scheduler = new OffspringScheduler(new GeneticOperator[]{operator}, new Integer[]{1},
+                DuplicatePolicy.REUSE_FITNESS, new Random(1));
+        Offspring[] offspring = scheduler.schedule(createSelector(trees), 10);
+
+        assertEquals(10, offspring.length);
+        assertEquals(80, scheduler.getLastDuplicateRate(), 0);
+    }
+
+    @Test
+    public void selectorWithoutFitnessStillSchedules() {
+        final List<Node> trees = TestTrees.generateDistinct(TestTrees.createCFG(10), 6, 2, 3);
+        GeneticOperator copy = new GeneticOperator() {
+            @Override
+            public List<Node> evolve(List<Node> nodes) {
+                List<Node> result = new ArrayList<Node>();
+                result.add(nodes.get(0).copyTree(null));
+                return result;
+            }
+        };
+        //a selector written before nextCandidate existed
+        Selector selector = new Selector() {
+            private int next;
+
+            @Override
+            public Node next() {
+                return trees.get(next++ % trees.size());
+            }
+        };
+
+        OffspringScheduler scheduler = new OffspringScheduler(new GeneticOperator[]{copy}, new Integer[]{1},
+                DuplicatePolicy.NONE, new Random(1));
+        Offspring[] offspring = scheduler.schedule(selector, 4);
+
+        assertEquals(4, offspring.length);
+        for (Offspring o : offspring) {
+            //the fitness of the parents is not known, so the copies are evaluated again
+            assertTrue(Double.isNaN(o.getCachedFitness()));
+        }
+    }
+
+    private static Selector createSelector(final List<Node> trees) {
+        return new Selector() {
+            private int next;
+
+            @Override
+            public Node next() {
+                return nextCandidate().getNode();
+            }
+
+            @Override
+            public RankedCandidate nextCandidate() {
+                return RankedCandidate.create(trees.get(next++ % trees.size()), 1);
+            }
+        };
+    }
+
+    /**
+     * A copy of a tree whose structural hash collides with all the other copies.
+     */
+    private static class CollidingNode extends Node {
+
+        private CollidingNode(Node tree) {
+            super(null, tree.getSymbol(), tree.getChildren());
+        }
+
+        @Override
+        public long getStructuralHash() {
+            return 42;
+        }
+    }
+}
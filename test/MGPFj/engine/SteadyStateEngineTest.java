@@ -0,0 +1,44 @@
+package MGPFj.engine;
+
+import MGPFj.TestTrees;
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.grammar.CFG;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SteadyStateEngineTest {
+
+    private final CFG cfg = TestTrees.createCFG(10);
+
+    @Test
+    public void improvementsGoToTheListeners() {
+        final List<Integer> generations = Collections.synchronizedList(new ArrayList<Integer>());
+        final List<RankedCandidate> improvements =
+                Collections.synchronizedList(new ArrayList<RankedCandidate>());
+        RankedCandidate[] result = SteadyStateEngine.start(cfg, new TestTrees.CaseFitness(40), 6, 50, 2000)
+                .addListener(new EvolutionListener() {
+                    @Override
+                    public void bestImproved(int generation, RankedCandidate best) {
+                        generations.add(generation);
+                        improvements.add(best);
+                    }
+                })
+                .finish()
+                .run(false);
+
+        assertTrue(improvements.size() > 0);
+        assertEquals(0, (int) generations.get(0));
+        for (int i = 1; i < improvements.size(); i++) {
+            assertTrue(generations.get(i) >= generations.get(i - 1));
+            assertTrue(generations.get(i) <= 2000 / 50);
+            assertTrue(improvements.get(i).compareTo(improvements.get(i - 1)) < 0);
+        }
+        assertEquals(result[0].getFitness(), improvements.get(improvements.size() - 1).getFitness(), 0);
+    }
+}
@@ -0,0 +1,171 @@
+package MGPFj.fitness;
+
+import MGPFj.TestTrees;
+import MGPFj.chromosome.Node;
+import MGPFj.grammar.CFG;
+import MGPFj.utils.LongHashSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PersistentFitnessCacheTest {
+
+    private static final long FINGERPRINT = 17;
+    private static final long MAX_BYTES = 1 << 16;
+    //the header and a window of 8 slots of 24 bytes
+    private static final long MIN_BYTES = 16 + 8 * 24;
+
+    private File file;
+    private List<Node> trees;
+    private TestTrees.CountingFitness fitness;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("fitness", ".cache");
+        fitness = new TestTrees.CountingFitness();
+
+        //structurally different trees, so each one has its own entry
+        CFG cfg = TestTrees.createCFG(10);
+        LongHashSet hashes = new LongHashSet(100);
+        trees = new ArrayList<Node>();
+        for (Node tree : TestTrees.generate(cfg, 8, 1000, 5)) {
+            if (trees.size() < 100 && hashes.add(tree.getStructuralHash())) {
+                trees.add(tree);
+            }
+        }
+        assertEquals(100, trees.size());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void secondEvaluationIsAHit() throws IOException {
+        PersistentFitnessCache cache = new PersistentFitnessCache(fitness, file, FINGERPRINT, MAX_BYTES);
+
+        for (Node tree : trees) {
+            assertEquals(expected(tree), cache.evaluate(tree), 0);
+        }
+        assertEquals(0, cache.getHits());
+        assertEquals(trees.size(), cache.getMisses());
+        assertEquals(trees.size(), fitness.getCalls());
+
+        for (Node tree : trees) {
+            assertEquals(expected(tree), cache.evaluate(tree), 0);
+        }
+        assertEquals(trees.size(), cache.getHits());
+        assertEquals(trees.size(), cache.getMisses());
+        assertEquals(trees.size(), fitness.getCalls());
+    }
+
+    @Test
+    public void evaluateAllOnlyEvaluatesTheMisses() throws IOException {
+        PersistentFitnessCache cache = new PersistentFitnessCache(fitness, file, FINGERPRINT, MAX_BYTES);
+        for (int i = 0; i < trees.size(); i += 2) {
+            cache.evaluate(trees.get(i));
+        }
+
+        double[] out = new double[trees.size()];
+        cache.evaluateAll(trees, out);
+
+        for (int i = 0; i < trees.size(); i++) {
+            assertEquals(expected(trees.get(i)), out[i], 0);
+        }
+        assertEquals(trees.size() / 2, cache.getHits());
+        assertEquals(trees.size(), cache.getMisses());
+        assertEquals(trees.size(), fitness.getCalls());
+    }
+
+    @Test
+    public void reopenedFileKeepsTheEntries() throws IOException {
+        PersistentFitnessCache cache = new PersistentFitnessCache(fitness, file, FINGERPRINT, MAX_BYTES);
+        for (Node tree : trees) {
+            cache.evaluate(tree);
+        }
+        cache.flush();
+        long length = file.length();
+
+        //the size cap only applies to a new file
+        TestTrees.CountingFitness otherFitness = new TestTrees.CountingFitness();
+        PersistentFitnessCache reopened = new PersistentFitnessCache(otherFitness, file, FINGERPRINT, MIN_BYTES);
+        assertEquals(cache.getCapacity(), reopened.getCapacity());
+
+        for (Node tree : trees) {
+            assertEquals(expected(tree), reopened.evaluate(tree), 0);
+        }
+        assertEquals(trees.size(), reopened.getHits());
+        assertEquals(0, reopened.getMisses());
+        assertEquals(0, otherFitness.getCalls());
+        assertEquals(length, file.length());
+    }
+
+    @Test
+    public void otherFingerprintMisses() throws IOException {
+        PersistentFitnessCache cache = new PersistentFitnessCache(fitness, file, FINGERPRINT, MAX_BYTES);
+        for (Node tree : trees) {
+            cache.evaluate(tree);
+        }
+
+        PersistentFitnessCache other = new PersistentFitnessCache(fitness, file, FINGERPRINT + 1, MAX_BYTES);
+        for (Node tree : trees) {
+            other.evaluate(tree);
+        }
+        assertEquals(0, other.getHits());
+        assertEquals(trees.size(), other.getMisses());
+    }
+
+    @Test
+    public void fullFileEvictsAndKeepsItsSize() throws IOException {
+        PersistentFitnessCache cache = new PersistentFitnessCache(fitness, file, FINGERPRINT, MIN_BYTES);
+        assertEquals(8, cache.getCapacity());
+        long length = file.length();
+
+        for (Node tree : trees) {
+            assertEquals(expected(tree), cache.evaluate(tree), 0);
+        }
+        assertEquals(trees.size() - cache.getCapacity(), cache.getEvictions());
+        assertEquals(length, file.length());
+
+        //the entries left in the file are still right, the evicted ones are evaluated again
+        for (Node tree : trees) {
+            assertEquals(expected(tree), cache.evaluate(tree), 0);
+        }
+        assertTrue(cache.getHits() <= cache.getCapacity());
+        assertEquals(2 * trees.size(), cache.getHits() + cache.getMisses());
+    }
+
+    @Test
+    public void otherFileIsRejected() throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[64]);
+        out.close();
+
+        try {
+            new PersistentFitnessCache(fitness, file, FINGERPRINT, MAX_BYTES);
+            fail("A file which is not a cache was opened");
+        } catch (IOException e) {
+            //expected
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void sizeCapBelowOneWindowIsRejected() throws IOException {
+        new PersistentFitnessCache(fitness, file, FINGERPRINT, MIN_BYTES - 1);
+    }
+
+    private static double expected(Node tree) {
+        return new TestTrees.CountingFitness().evaluate(tree);
+    }
+}
@@ -0,0 +1,166 @@
+package MGPFj.serialization;
+
+import MGPFj.TestTrees;
+import MGPFj.chromosome.Node;
+import MGPFj.chromosome.RankedCandidate;
+import MGPFj.grammar.CFG;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TreeCodecTest {
+
+    private CFG cfg;
+    private TreeCodec codec;
+    private List<Node> trees;
+
+    @Before
+    public void setUp() {
+        cfg = TestTrees.createCFG(10);
+        codec = new TreeCodec(cfg);
+        trees = TestTrees.generate(cfg, 8, 200, 1);
+    }
+
+    @Test
+    public void streamRoundTripKeepsTheTrees() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int size = 0;
+        for (Node tree : trees) {
+            codec.write(tree, out);
+            size += codec.getEncodedSize(tree);
+        }
+        out.flush();
+        assertEquals(size, bytes.size());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (Node tree : trees) {
+            assertSameTree(tree, codec.read(in));
+        }
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    public void bufferRoundTripKeepsTheTrees() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        for (Node tree : trees) {
+            int position = buffer.position();
+            codec.write(tree, buffer);
+            assertEquals(codec.getEncodedSize(tree), buffer.position() - position);
+        }
+
+        buffer.flip();
+        for (Node tree : trees) {
+            assertSameTree(tree, codec.read(buffer));
+        }
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void populationRoundTripKeepsTheTreesAndTheFitness() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PopulationWriter writer = new PopulationWriter(codec, Channels.newChannel(bytes));
+        for (int i = 0; i < trees.size(); i++) {
+            //every third fitness is not known
+            writer.write(trees.get(i), i % 3 == 0 ? Double.NaN : i * 0.5);
+        }
+        assertEquals(trees.size(), writer.getCount());
+        writer.close();
+
+        PopulationReader reader = new PopulationReader(codec,
+                Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+        for (int i = 0; i < trees.size(); i++) {
+            assertTrue(reader.next());
+            assertSameTree(trees.get(i), reader.getNode());
+            if (i % 3 == 0) {
+                assertTrue(Double.isNaN(reader.getFitness()));
+            } else {
+                assertEquals(i * 0.5, reader.getFitness(), 0);
+            }
+        }
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void populationRoundTripOfRankedCandidates() throws IOException {
+        RankedCandidate[] candidates = RankedCandidate.rankAndSort(trees, new TestTrees.CountingFitness());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PopulationWriter writer = new PopulationWriter(codec, Channels.newChannel(bytes));
+        writer.writeAll(candidates);
+        writer.close();
+
+        PopulationReader reader = new PopulationReader(codec,
+                Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+        RankedCandidate[] read = reader.readAll();
+        reader.close();
+
+        assertEquals(candidates.length, read.length);
+        for (int i = 0; i < candidates.length; i++) {
+            assertSameTree(candidates[i].getNode(), read[i].getNode());
+            assertEquals(candidates[i].getFitness(), read[i].getFitness(), 0);
+        }
+    }
+
+    @Test
+    public void populationOfAnotherCfgIsRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PopulationWriter writer = new PopulationWriter(codec, Channels.newChannel(bytes));
+        writer.write(trees.get(0), 1);
+        writer.close();
+
+        TreeCodec otherCodec = new TreeCodec(TestTrees.createCFG(5));
+        try {
+            new PopulationReader(otherCodec, Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+            fail("The population of another CFG was read");
+        } catch (IOException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void cutPopulationIsRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PopulationWriter writer = new PopulationWriter(codec, Channels.newChannel(bytes));
+        for (Node tree : trees) {
+            writer.write(tree, 1);
+        }
+        writer.close();
+
+        byte[] cut = new byte[bytes.size() / 2];
+        System.arraycopy(bytes.toByteArray(), 0, cut, 0, cut.length);
+
+        PopulationReader reader = new PopulationReader(codec, Channels.newChannel(new ByteArrayInputStream(cut)));
+        try {
+            while (reader.next()) {
+                //reads up to the cut
+            }
+            fail("A cut population was read to the end");
+        } catch (IOException e) {
+            //expected
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void assertSameTree(Node expected, Node actual) {
+        assertTrue(expected.getTreeNotation() + " != " + actual.getTreeNotation(),
+                expected.isStructurallyEqual(actual));
+        assertEquals(expected.getStructuralHash(), actual.getStructuralHash());
+        assertEquals(expected.evaluate(null), actual.evaluate(null));
+    }
+}
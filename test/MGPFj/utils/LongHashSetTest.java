@@ -0,0 +1,94 @@
+package MGPFj.utils;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongHashSetTest {
+
+    @Test
+    public void keepsAllTheValuesAcrossResizes() {
+        //starts with the smallest table, so it grows many times
+        LongHashSet set = new LongHashSet(1);
+        Set<Long> expected = new HashSet<Long>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20000; i++) {
+            long value = random.nextLong();
+            assertEquals(expected.add(value), set.add(value));
+            assertEquals(expected.size(), set.size());
+        }
+
+        for (Long value : expected) {
+            assertTrue(set.contains(value));
+        }
+        for (int i = 0; i < 20000; i++) {
+            long value = random.nextLong();
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    public void keepsCollidingValuesAcrossResizes() {
+        //multiples of a large power of two share their low bits
+        LongHashSet set = new LongHashSet(4);
+        for (long i = 1; i <= 5000; i++) {
+            assertTrue(set.add(i << 32));
+            assertTrue(set.add(-i));
+        }
+
+        assertEquals(10000, set.size());
+        for (long i = 1; i <= 5000; i++) {
+            assertTrue(set.contains(i << 32));
+            assertTrue(set.contains(-i));
+            assertFalse(set.contains(i));
+        }
+    }
+
+    @Test
+    public void addingTwiceReturnsFalse() {
+        LongHashSet set = new LongHashSet(4);
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void zeroIsAValue() {
+        LongHashSet set = new LongHashSet(4);
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+
+        //zero stays in the set when it grows
+        for (long i = 1; i <= 100; i++) {
+            set.add(i);
+        }
+        assertTrue(set.contains(0));
+        assertEquals(101, set.size());
+    }
+
+    @Test
+    public void clearRemovesAllTheValues() {
+        LongHashSet set = new LongHashSet(4);
+        for (long i = 0; i < 100; i++) {
+            set.add(i);
+        }
+        set.clear();
+
+        assertEquals(0, set.size());
+        for (long i = 0; i < 100; i++) {
+            assertFalse(set.contains(i));
+        }
+        assertTrue(set.add(0));
+        assertTrue(set.add(1));
+    }
+}